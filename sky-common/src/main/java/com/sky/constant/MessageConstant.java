@@ -13,6 +13,9 @@ public class MessageConstant {
     public static final String CATEGORY_BE_RELATED_BY_SETMEAL = "当前分类关联了套餐,不能删除";
     public static final String CATEGORY_BE_RELATED_BY_DISH = "当前分类关联了菜品,不能删除";
     public static final String SHOPPING_CART_IS_NULL = "购物车数据为空，不能下单";
+    public static final String SHOPPING_CART_ITEM_INVALID = "购物车商品参数错误";
+    public static final String SHOPPING_CART_BATCH_TOO_LARGE = "一次修改的购物车商品过多";
+    public static final String ITEM_NOT_ON_SALE = "商品不存在或已停售";
     public static final String ADDRESS_BOOK_IS_NULL = "用户地址为空，不能下单";
     public static final String LOGIN_FAILED = "登录失败";
     public static final String UPLOAD_FAILED = "文件上传失败";
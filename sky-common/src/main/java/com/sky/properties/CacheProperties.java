@@ -0,0 +1,99 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 两级缓存（本地 + Redis）相关配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sky.cache")
+public class CacheProperties {
+
+    /**
+     * Redis中缓存的默认过期时间
+     */
+    private Duration defaultTtl = Duration.ofHours(1);
+
+    /**
+     * 各缓存的过期时间，key为缓存名称，未配置的使用defaultTtl
+     */
+    private Map<String, Duration> ttl = new HashMap<>();
+
+    /**
+     * 结果为空集合（如不存在的分类）时的过期时间，短时间内重复查询不再回源
+     */
+    private Duration emptyTtl = Duration.ofMinutes(1);
+
+    /**
+     * Redis中缓存值的序列化方式：smile（Jackson Smile二进制格式，超过阈值时压缩）或 jdk（JDK序列化，与原RedisCacheManager兼容）
+     */
+    private String serializer = "smile";
+
+    /**
+     * smile序列化后超过该大小时使用Deflate压缩，为0时不压缩
+     */
+    private DataSize compressThreshold = DataSize.ofKilobytes(4);
+
+    /**
+     * Redis过期时间的随机增量比例，如0.1表示在过期时间基础上随机增加0~10%，避免同时过期
+     */
+    private double ttlJitter = 0.1;
+
+    /**
+     * 提前刷新比例，缓存剩余过期时间低于该比例时，命中的请求在后台重新加载
+     */
+    private double refreshAhead = 0.2;
+
+    /**
+     * 启动时预热所有启用分类的菜品、套餐缓存
+     */
+    private boolean warmUp = true;
+
+    /**
+     * 定时输出缓存统计摘要的间隔
+     */
+    private Duration statsLogInterval = Duration.ofMinutes(5);
+
+    /**
+     * 缓存失效通知的Redis频道
+     */
+    private String invalidationChannel = "sky:cache:invalidation";
+
+    private Local local = new Local();
+
+    @Data
+    public static class Local {
+
+        /**
+         * 每个缓存本地最多保存的条目数
+         */
+        private long maximumSize = 1000;
+
+        /**
+         * 每个缓存本地最多占用的内存，按序列化后的大小估算
+         */
+        private DataSize maximumBytes = DataSize.ofMegabytes(32);
+
+        /**
+         * 本地缓存的过期时间，超过Redis中的过期时间时以Redis为准
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+
+    /**
+     * 指定缓存在Redis中的过期时间
+     * @param cacheName
+     * @return
+     */
+    public Duration getTtl(String cacheName) {
+        return ttl.getOrDefault(cacheName, defaultTtl);
+    }
+}
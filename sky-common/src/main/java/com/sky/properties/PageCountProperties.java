@@ -0,0 +1,31 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 管理端分页查询总数缓存相关配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sky.page-count")
+public class PageCountProperties {
+
+    /**
+     * 总数的缓存时间，本节点的写操作会立即使其失效，其他节点的写操作最多延迟这么久体现
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+
+    /**
+     * 最多缓存的查询条件组合数
+     */
+    private long maximumSize = 1000;
+
+    /**
+     * 不带任何条件的订单搜索使用表统计信息中的估算行数作为总数，不执行count
+     */
+    private boolean estimateOrderTotal = false;
+}
@@ -0,0 +1,27 @@
+package com.sky.result;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 封装游标分页查询结果，不返回总记录数
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPageResult implements Serializable {
+
+    private List records; //当前页数据集合
+
+    private boolean hasMore; //是否还有下一页
+
+    private LocalDateTime nextCursorTime; //下一页的游标：当前页最后一条记录的时间
+
+    private Long nextCursorId; //下一页的游标：当前页最后一条记录的id
+
+}
@@ -1,6 +1,7 @@
 package com.sky.utils;
 
 import com.alibaba.fastjson.JSONObject;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
@@ -8,36 +9,89 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Http工具类
+ * 所有请求共用一个带连接池的HttpClient，复用keep-alive连接，并统一设置连接、读取超时
  */
+@Slf4j
 public class HttpClientUtil {
 
     static final  int TIMEOUT_MSEC = 5 * 1000;
+    //连接池最大连接数
+    static final int MAX_TOTAL = 200;
+    //每个目标主机的最大连接数
+    static final int MAX_PER_ROUTE = 50;
+    //服务端未声明keep-alive时长时，连接的默认保持时间
+    static final int KEEP_ALIVE_MSEC = 30 * 1000;
+    //异步请求线程数
+    static final int ASYNC_THREADS = 16;
+
+    private static final PoolingHttpClientConnectionManager CONNECTION_MANAGER = new PoolingHttpClientConnectionManager();
+
+    private static final CloseableHttpClient HTTP_CLIENT;
+
+    private static final ExecutorService ASYNC_EXECUTOR;
+
+    static {
+        CONNECTION_MANAGER.setMaxTotal(MAX_TOTAL);
+        CONNECTION_MANAGER.setDefaultMaxPerRoute(MAX_PER_ROUTE);
+        //连接空闲超过2秒后再次使用前先校验，避免拿到已被服务端关闭的连接
+        CONNECTION_MANAGER.setValidateAfterInactivity(2000);
+
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? duration : KEEP_ALIVE_MSEC;
+        };
+
+        HTTP_CLIENT = HttpClients.custom()
+                .setConnectionManager(CONNECTION_MANAGER)
+                .setDefaultRequestConfig(builderRequestConfig())
+                .setKeepAliveStrategy(keepAliveStrategy)
+                //后台线程定期清理过期和空闲的连接
+                .evictExpiredConnections()
+                .evictIdleConnections((long) KEEP_ALIVE_MSEC, TimeUnit.MILLISECONDS)
+                .build();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ASYNC_EXECUTOR = Executors.newFixedThreadPool(ASYNC_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "http-async-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
     /**
      * 发送GET方式请求
      * @param url
      * @param paramMap
      * @return
+     * @throws UncheckedIOException 请求失败或响应状态码不是200
      */
     public static String doGet(String url,Map<String,String> paramMap){
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
-
-        String result = "";
         CloseableHttpResponse response = null;
 
         try{
@@ -53,24 +107,35 @@ public class HttpClientUtil {
             HttpGet httpGet = new HttpGet(uri);
 
             //发送请求
-            response = httpClient.execute(httpGet);
+            response = HTTP_CLIENT.execute(httpGet);
 
             //判断响应状态
-            if(response.getStatusLine().getStatusCode() == 200){
-                result = EntityUtils.toString(response.getEntity(),"UTF-8");
+            int statusCode = response.getStatusLine().getStatusCode();
+            if(statusCode != 200){
+                //读完响应体，连接才能归还连接池复用
+                EntityUtils.consume(response.getEntity());
+                throw new IOException("响应状态码：" + statusCode);
             }
-        }catch (Exception e){
-            e.printStackTrace();
+            return EntityUtils.toString(response.getEntity(),"UTF-8");
+        }catch (IOException e){
+            //请求参数中可能包含密钥、用户地址，只输出不带参数的url
+            log.warn("GET请求失败，url：{}，{}", url, e.getMessage());
+            throw new UncheckedIOException(e);
+        }catch (URISyntaxException e){
+            throw new IllegalArgumentException("请求地址格式错误：" + url, e);
         }finally {
-            try {
-                response.close();
-                httpClient.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            closeResponse(response);
         }
+    }
 
-        return result;
+    /**
+     * 异步发送GET方式请求
+     * @param url
+     * @param paramMap
+     * @return 请求失败时以UncheckedIOException异常完成
+     */
+    public static CompletableFuture<String> doGetAsync(String url, Map<String, String> paramMap) {
+        return CompletableFuture.supplyAsync(() -> doGet(url, paramMap), ASYNC_EXECUTOR);
     }
 
     /**
@@ -81,8 +146,6 @@ public class HttpClientUtil {
      * @throws IOException
      */
     public static String doPost(String url, Map<String, String> paramMap) throws IOException {
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
         CloseableHttpResponse response = null;
         String resultString = "";
 
@@ -104,17 +167,13 @@ public class HttpClientUtil {
             httpPost.setConfig(builderRequestConfig());
 
             // 执行http请求
-            response = httpClient.execute(httpPost);
+            response = HTTP_CLIENT.execute(httpPost);
 
             resultString = EntityUtils.toString(response.getEntity(), "UTF-8");
         } catch (Exception e) {
             throw e;
         } finally {
-            try {
-                response.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            closeResponse(response);
         }
 
         return resultString;
@@ -128,8 +187,6 @@ public class HttpClientUtil {
      * @throws IOException
      */
     public static String doPost4Json(String url, Map<String, String> paramMap) throws IOException {
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
         CloseableHttpResponse response = null;
         String resultString = "";
 
@@ -154,21 +211,43 @@ public class HttpClientUtil {
             httpPost.setConfig(builderRequestConfig());
 
             // 执行http请求
-            response = httpClient.execute(httpPost);
+            response = HTTP_CLIENT.execute(httpPost);
 
             resultString = EntityUtils.toString(response.getEntity(), "UTF-8");
         } catch (Exception e) {
             throw e;
         } finally {
-            try {
-                response.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            closeResponse(response);
         }
 
         return resultString;
     }
+
+    /**
+     * 连接池使用情况
+     * @return
+     */
+    public static Map<String, Integer> getPoolStats() {
+        PoolStats stats = CONNECTION_MANAGER.getTotalStats();
+        Map<String, Integer> map = new LinkedHashMap<>();
+        map.put("leased", stats.getLeased());
+        map.put("pending", stats.getPending());
+        map.put("available", stats.getAvailable());
+        map.put("max", stats.getMax());
+        return map;
+    }
+
+    private static void closeResponse(CloseableHttpResponse response) {
+        if (response == null) {
+            return;
+        }
+        try {
+            response.close();
+        } catch (IOException e) {
+            log.warn("关闭响应失败：{}", e.getMessage());
+        }
+    }
+
     private static RequestConfig builderRequestConfig() {
         return RequestConfig.custom()
                 .setConnectTimeout(TIMEOUT_MSEC)
@@ -0,0 +1,67 @@
+package com.sky.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 耗时直方图
+ * 按固定的毫秒区间统计次数，同时记录总次数、总耗时和最大耗时，线程安全
+ */
+public class LatencyHistogram {
+
+    //各区间的上限（毫秒），最后一个区间为无上限
+    private static final long[] BOUNDS_MS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一次耗时
+     * @param nanos 纳秒
+     */
+    public void record(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int index = 0;
+        while (index < BOUNDS_MS.length && millis >= BOUNDS_MS[index]) {
+            index++;
+        }
+        buckets[index].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 统计快照
+     * @return
+     */
+    public Map<String, Object> snapshot() {
+        long n = count.sum();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", n);
+        map.put("avgMs", n == 0 ? 0.0 : totalNanos.sum() / 1_000_000.0 / n);
+        map.put("maxMs", maxNanos.get() / 1_000_000.0);
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < BOUNDS_MS.length; i++) {
+            histogram.put("<" + BOUNDS_MS[i] + "ms", buckets[i].sum());
+        }
+        histogram.put(">=" + BOUNDS_MS[BOUNDS_MS.length - 1] + "ms", buckets[BOUNDS_MS.length].sum());
+        map.put("histogram", histogram);
+        return map;
+    }
+}
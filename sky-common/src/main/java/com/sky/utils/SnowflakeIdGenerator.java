@@ -0,0 +1,98 @@
+package com.sky.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 雪花算法id生成器
+ * 64位id = 1位符号位(0) + 41位毫秒时间戳(相对EPOCH) + 10位机器id + 12位序列号
+ * 时间戳和序列号保存在同一个AtomicLong中，通过CAS无锁递增；
+ * 同一毫秒内序列号用完或系统时钟回拨时，沿用(或借用下一毫秒)已发放的最大时间戳，保证单实例内id严格递增。
+ * 机器id来自租约时，租约失效后调用suspend暂停发放，重新租到机器id后调用resume继续
+ */
+public class SnowflakeIdGenerator {
+
+    //起始时间 2024-01-01 00:00:00 (UTC+8)
+    public static final long EPOCH = 1704038400000L;
+
+    public static final int WORKER_ID_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_WORKER_ID = (1L << WORKER_ID_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = WORKER_ID_BITS + SEQUENCE_BITS;
+
+    //暂停发放时为-1
+    private volatile long workerId;
+
+    //高位为上一次发放的时间戳，低12位为该时间戳下已发放的序列号
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(long workerId) {
+        this.workerId = checkWorkerId(workerId);
+    }
+
+    /**
+     * 暂停发放id，之后nextId抛出IllegalStateException，直到resume
+     */
+    public void suspend() {
+        workerId = -1;
+    }
+
+    /**
+     * 使用新的机器id继续发放，时间戳和序列号接着已发放的继续递增
+     * @param workerId
+     */
+    public void resume(long workerId) {
+        this.workerId = checkWorkerId(workerId);
+    }
+
+    public boolean isSuspended() {
+        return workerId < 0;
+    }
+
+    /**
+     * 生成下一个id
+     * @return
+     * @throws IllegalStateException 已暂停发放
+     */
+    public long nextId() {
+        long workerId = this.workerId;
+        if (workerId < 0) {
+            throw new IllegalStateException("订单号机器id不可用，暂停生成id");
+        }
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - EPOCH;
+
+            long next;
+            if (now > lastTimestamp) {
+                //进入新的毫秒，序列号从0开始
+                next = now << SEQUENCE_BITS;
+            } else if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                //同一毫秒内或时钟回拨，沿用上一次的时间戳，序列号加一
+                next = current + 1;
+            } else {
+                //序列号用完，借用下一毫秒
+                next = (lastTimestamp + 1) << SEQUENCE_BITS;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (timestamp << TIMESTAMP_SHIFT) | (workerId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    private static long checkWorkerId(long workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId必须在0到" + MAX_WORKER_ID + "之间：" + workerId);
+        }
+        return workerId;
+    }
+}
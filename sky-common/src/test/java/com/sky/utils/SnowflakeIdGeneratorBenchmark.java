@@ -0,0 +1,97 @@
+package com.sky.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单号生成吞吐量对比：雪花算法(CAS) / 同样位布局的synchronized实现 / 原来的时间戳+随机数 / UUID
+ * 均生成下单时写入的字符串订单号，8个线程并发调用。不随mvn test执行，运行方式：
+ * mvn -pl sky-common test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/cp.txt
+ * java -cp sky-common/target/test-classes:sky-common/target/classes:$(cat sky-common/target/cp.txt) com.sky.utils.SnowflakeIdGeneratorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class SnowflakeIdGeneratorBenchmark {
+
+    private final SnowflakeIdGenerator snowflake = new SnowflakeIdGenerator(1);
+
+    private final SynchronizedSnowflake synchronizedSnowflake = new SynchronizedSnowflake(1);
+
+    @Benchmark
+    public String snowflake() {
+        return String.valueOf(snowflake.nextId());
+    }
+
+    @Benchmark
+    public String synchronizedSnowflake() {
+        return String.valueOf(synchronizedSnowflake.nextId());
+    }
+
+    /**
+     * 改用雪花算法之前的订单号
+     */
+    @Benchmark
+    public String timestampRandom() {
+        return String.valueOf(System.currentTimeMillis()) + (int) (Math.random() * 1000000);
+    }
+
+    @Benchmark
+    public String uuid() {
+        return UUID.randomUUID().toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SnowflakeIdGeneratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * 加锁的雪花算法，作为CAS实现的对照
+     */
+    static final class SynchronizedSnowflake {
+
+        private final long workerId;
+
+        private long lastTimestamp = -1;
+
+        private long sequence;
+
+        SynchronizedSnowflake(long workerId) {
+            this.workerId = workerId;
+        }
+
+        synchronized long nextId() {
+            long now = System.currentTimeMillis() - SnowflakeIdGenerator.EPOCH;
+            if (now > lastTimestamp) {
+                lastTimestamp = now;
+                sequence = 0;
+            } else if (++sequence > (1L << SnowflakeIdGenerator.SEQUENCE_BITS) - 1) {
+                lastTimestamp++;
+                sequence = 0;
+            }
+            return lastTimestamp << (SnowflakeIdGenerator.WORKER_ID_BITS + SnowflakeIdGenerator.SEQUENCE_BITS)
+                    | workerId << SnowflakeIdGenerator.SEQUENCE_BITS
+                    | sequence;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.sky.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 16;
+    private static final int IDS_PER_THREAD = 50_000;
+
+    @Test
+    void concurrentIdsAreUniqueAndIncreasingPerThread() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                Callable<Boolean> task = () -> {
+                    start.await();
+                    long last = -1;
+                    boolean increasing = true;
+                    for (int j = 0; j < IDS_PER_THREAD; j++) {
+                        long id = generator.nextId();
+                        increasing &= id > last;
+                        last = id;
+                        ids.add(id);
+                    }
+                    return increasing;
+                };
+                results.add(executor.submit(task));
+            }
+            start.countDown();
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+    }
+
+    @Test
+    void idsCarryWorkerId() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID);
+        long id = generator.nextId();
+        assertEquals(SnowflakeIdGenerator.MAX_WORKER_ID,
+                (id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_WORKER_ID);
+    }
+
+    @Test
+    void suspendedGeneratorFailsUntilResumed() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        long before = generator.nextId();
+
+        generator.suspend();
+        assertThrows(IllegalStateException.class, generator::nextId);
+
+        generator.resume(2);
+        long after = generator.nextId();
+        assertTrue(after > before);
+        assertEquals(2, (after >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_WORKER_ID);
+    }
+
+    @Test
+    void rejectsWorkerIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1));
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0);
+        assertThrows(IllegalArgumentException.class, () -> generator.resume(-1));
+    }
+}
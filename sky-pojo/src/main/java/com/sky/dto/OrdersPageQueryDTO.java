@@ -27,4 +27,16 @@ public class OrdersPageQueryDTO implements Serializable {
 
     private Long userId;
 
+    //游标分页：上一页最后一条订单的下单时间和id，为空时查询第一页
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime cursorTime;
+
+    private Long cursorId;
+
+    //订单号、手机号的匹配方式，由服务端按配置项 sky.order.search-mode 设置
+    private String searchMode;
+
+    //反转后的手机号，按尾号匹配生成列phone_rev时使用，由服务端设置
+    private String phoneReversed;
+
 }
\ No newline at end of file
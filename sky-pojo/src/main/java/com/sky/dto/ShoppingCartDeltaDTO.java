@@ -0,0 +1,18 @@
+package com.sky.dto;
+
+import lombok.Data;
+import java.io.Serializable;
+
+/**
+ * 购物车商品数量变化，用于批量修改购物车
+ */
+@Data
+public class ShoppingCartDeltaDTO implements Serializable {
+
+    private Long dishId;
+    private Long setmealId;
+    private String dishFlavor;
+    //数量变化，正数加购、负数减购
+    private Integer number;
+
+}
@@ -0,0 +1,35 @@
+package com.sky.vo;
+
+import com.sky.entity.Setmeal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 菜单中的一个分类及其下在售的菜品或套餐
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuCategoryVO implements Serializable {
+
+    private Long id;
+    //类型: 1菜品分类 2套餐分类
+    private Integer type;
+    //分类名称
+    private String name;
+    //顺序
+    private Integer sort;
+    //菜品分类下的菜品和口味
+    @Builder.Default
+    private List<DishVO> dishes = new ArrayList<>();
+    //套餐分类下的套餐
+    @Builder.Default
+    private List<Setmeal> setmeals = new ArrayList<>();
+}
@@ -0,0 +1,21 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 完整菜单：所有启用的分类，按分类排序
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuSnapshotVO implements Serializable {
+
+    private List<MenuCategoryVO> categories;
+}
@@ -0,0 +1,38 @@
+package com.sky.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 定时输出各缓存的统计摘要（自启动以来的累计值），用于调整过期时间和本地缓存容量
+ */
+@Component
+@Slf4j
+public class CacheStatisticsLogger {
+
+    @Autowired
+    private TwoLevelCacheManager cacheManager;
+
+    @Scheduled(fixedRateString = "#{@cacheProperties.statsLogInterval.toMillis()}",
+            initialDelayString = "#{@cacheProperties.statsLogInterval.toMillis()}")
+    @SuppressWarnings("unchecked")
+    public void logStatistics() {
+        cacheManager.statistics().forEach((name, stats) -> {
+            if ((long) stats.get("requests") == 0) {
+                return;
+            }
+            Map<String, Object> loadTime = (Map<String, Object>) stats.get("loadTime");
+            Map<String, Long> removals = (Map<String, Long>) stats.get("localRemovals");
+            log.info("缓存统计：{}，请求：{}，命中率：{}，本地命中：{}，Redis命中：{}，未命中：{}，回源平均耗时：{}ms，最大：{}ms，"
+                            + "本地条目：{}，本地容量淘汰：{}，本地过期：{}，Redis异常：{}",
+                    name, stats.get("requests"), String.format("%.2f%%", (double) stats.get("hitRate") * 100),
+                    stats.get("localHits"), stats.get("redisHits"), stats.get("misses"),
+                    String.format("%.2f", (double) loadTime.get("avgMs")), loadTime.get("maxMs"),
+                    stats.get("localSize"), removals.get("SIZE"), removals.get("EXPIRED"), stats.get("redisErrors"));
+        });
+    }
+}
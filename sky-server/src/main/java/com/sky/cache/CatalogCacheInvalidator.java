@@ -0,0 +1,70 @@
+package com.sky.cache;
+
+import com.sky.catalog.CatalogChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Set;
+
+/**
+ * 目录数据变更后精确失效菜品、套餐缓存
+ * 受影响的分类由service在修改前后计算并随事件发布（如菜品的新旧分类、包含停售菜品的套餐所属分类），
+ * 事务提交后只删除这些分类的缓存，避免并发读在提交前把旧数据重新写入缓存；同时失效这些分类已序列化的响应。
+ * MyBatis在事务提交前清空二级缓存，提交后这里再清空一次，覆盖提交前并发查询写回的旧数据。
+ * 先于目录快照、菜单快照的重建执行，重建时读到的都是新数据
+ */
+@Component
+@Slf4j
+public class CatalogCacheInvalidator {
+
+    public static final String DISH_CACHE = "dishCache";
+    public static final String SETMEAL_CACHE = "setmealCache";
+
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
+    //MyBatis二级缓存：菜品、口味、套餐、套餐菜品共用一个，分类单独一个
+    public static final String DISH_MAPPER_CACHE = "mybatis:com.sky.mapper.DishMapper";
+    public static final String CATEGORY_MAPPER_CACHE = "mybatis:com.sky.mapper.CategoryMapper";
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        clear(event.getType() == CatalogChangeEvent.Type.CATEGORY ? CATEGORY_MAPPER_CACHE : DISH_MAPPER_CACHE);
+        evict(DISH_CACHE, event.getDishCategoryIds());
+        evict(SETMEAL_CACHE, event.getSetmealCategoryIds());
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.clear();
+        } catch (RuntimeException e) {
+            log.warn("清空缓存失败：{}，{}", cacheName, e.getMessage());
+        }
+    }
+
+    private void evict(String cacheName, Set<Long> categoryIds) {
+        if (categoryIds.isEmpty()) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        categoryIds.forEach(cache::evict);
+        catalogResponseCache.evict(cacheName, categoryIds);
+        log.info("缓存失效：{}，分类：{}", cacheName, categoryIds);
+    }
+}
@@ -0,0 +1,82 @@
+package com.sky.cache;
+
+import com.sky.catalog.CatalogHolder;
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.properties.CacheProperties;
+import com.sky.service.CategoryService;
+import com.sky.service.DishService;
+import com.sky.service.MenuService;
+import com.sky.service.SetmealService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 启动预热：在应用就绪（ApplicationReadyEvent）之前加载所有启用分类的菜品、套餐缓存，
+ * 以及目录快照和菜单快照，避免新实例上线后的第一批请求全部回源MySQL
+ */
+@Component
+@Slf4j
+public class CatalogCacheWarmer implements ApplicationRunner {
+
+    //分类类型：1菜品分类 2套餐分类
+    private static final int DISH_CATEGORY = 1;
+    private static final int SETMEAL_CATEGORY = 2;
+
+    @Autowired
+    private CacheProperties cacheProperties;
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private DishService dishService;
+    @Autowired
+    private SetmealService setmealService;
+    @Autowired
+    private CatalogHolder catalogHolder;
+    @Autowired
+    private MenuService menuService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!cacheProperties.isWarmUp()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            catalogHolder.get();
+            menuService.getSnapshot();
+
+            List<Category> categories = categoryService.list(null);
+            int count = 0;
+            for (Category category : categories) {
+                if (!StatusConstant.ENABLE.equals(category.getStatus())) {
+                    continue;
+                }
+                //经过缓存代理调用，结果写入dishCache/setmealCache
+                if (category.getType() == DISH_CATEGORY) {
+                    dishService.listWithFlavor(Dish.builder()
+                            .categoryId(category.getId())
+                            .status(StatusConstant.ENABLE)
+                            .build());
+                } else if (category.getType() == SETMEAL_CATEGORY) {
+                    setmealService.list(Setmeal.builder()
+                            .categoryId(category.getId())
+                            .status(StatusConstant.ENABLE)
+                            .build());
+                }
+                count++;
+            }
+            log.info("缓存预热完成，分类数：{}，耗时：{}ms", count, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            //预热失败不影响启动，缓存在首次访问时加载
+            log.warn("缓存预热失败：{}", e.getMessage());
+        }
+    }
+}
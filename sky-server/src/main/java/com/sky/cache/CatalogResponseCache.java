@@ -0,0 +1,97 @@
+package com.sky.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.properties.CacheProperties;
+import com.sky.result.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 菜品、套餐列表接口的响应字节缓存，key与dishCache、setmealCache相同（分类id）
+ * 每个条目记录生成它的缓存值，请求时从Spring缓存取到的仍是同一个对象才直接使用已序列化的字节；
+ * 其他节点修改数据后Spring缓存中的值被替换，这里也随之重新序列化。
+ * 目录变更事件由CatalogCacheInvalidator在失效Spring缓存时一并失效这里的条目
+ */
+@Component
+@Slf4j
+public class CatalogResponseCache {
+
+    //与消息转换器使用相同的序列化规则
+    private final JacksonObjectMapper objectMapper = new JacksonObjectMapper();
+
+    private final Cache<String, Entry> entries;
+
+    //空列表的响应，不存在的分类直接返回，不占用缓存条目
+    private final SerializedResponse emptyList;
+
+    public CatalogResponseCache(CacheProperties cacheProperties) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getLocal().getMaximumSize())
+                .build();
+        this.emptyList = serialize(List.of());
+    }
+
+    /**
+     * 查询value对应的响应字节，不存在或已由其他值生成时重新序列化
+     * @param cacheName
+     * @param key
+     * @param value 从Spring缓存取到的值
+     * @return
+     */
+    public SerializedResponse get(String cacheName, Object key, Object value) {
+        String cacheKey = cacheName + "::" + key;
+        Entry entry = entries.getIfPresent(cacheKey);
+        if (entry != null && entry.source == value) {
+            return entry.response;
+        }
+        SerializedResponse response = serialize(value);
+        entries.put(cacheKey, new Entry(value, response));
+        return response;
+    }
+
+    /**
+     * 空列表的响应
+     * @return
+     */
+    public SerializedResponse emptyList() {
+        return emptyList;
+    }
+
+    /**
+     * 失效指定缓存中若干key的响应
+     * @param cacheName
+     * @param keys
+     */
+    public void evict(String cacheName, Collection<?> keys) {
+        for (Object key : keys) {
+            entries.invalidate(cacheName + "::" + key);
+        }
+    }
+
+    private SerializedResponse serialize(Object value) {
+        try {
+            return SerializedResponse.of(objectMapper.writeValueAsBytes(Result.success(value)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("响应序列化失败", e);
+        }
+    }
+
+    private static final class Entry {
+
+        //生成响应的缓存值，按引用比较
+        final Object source;
+
+        final SerializedResponse response;
+
+        Entry(Object source, SerializedResponse response) {
+            this.source = source;
+            this.response = response;
+        }
+    }
+}
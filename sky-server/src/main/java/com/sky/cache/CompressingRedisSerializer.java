@@ -0,0 +1,89 @@
+package com.sky.cache;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 为缓存值加一个字节的格式头，超过阈值的值使用Deflate压缩
+ * 格式头：0 未压缩，1 Deflate压缩
+ */
+public class CompressingRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte PLAIN = 0;
+    private static final byte DEFLATE = 1;
+
+    private final RedisSerializer<Object> delegate;
+
+    //序列化后超过该字节数时压缩，小于等于0时不压缩
+    private final long threshold;
+
+    public CompressingRedisSerializer(RedisSerializer<Object> delegate, long threshold) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte[] bytes = delegate.serialize(value);
+        if (bytes == null) {
+            return null;
+        }
+        if (threshold <= 0 || bytes.length <= threshold) {
+            byte[] result = new byte[bytes.length + 1];
+            result[0] = PLAIN;
+            System.arraycopy(bytes, 0, result, 1, bytes.length);
+            return result;
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+            out.write(DEFLATE);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == PLAIN) {
+            return delegate.deserialize(Arrays.copyOfRange(bytes, 1, bytes.length));
+        }
+        if (bytes[0] != DEFLATE) {
+            throw new SerializationException("未知的缓存值格式：" + bytes[0]);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, 1, bytes.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 3);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new SerializationException("缓存值数据不完整");
+                }
+                out.write(buffer, 0, n);
+            }
+            return delegate.deserialize(out.toByteArray());
+        } catch (DataFormatException e) {
+            throw new SerializationException("缓存值解压失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.sky.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cache.Cache;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * MyBatis二级缓存，在mapper xml中通过 &lt;cache type="com.sky.cache.MybatisRedisCache"/&gt; 按namespace启用
+ * 数据保存在名为 mybatis:{namespace} 的两级缓存（本地 + Redis）中，过期时间、本地容量、统计与其他缓存相同；
+ * 同一namespace（含cache-ref引用它的namespace）执行insert/update/delete后，MyBatis在事务提交时清空整个缓存。
+ * 缓存中的对象会被多个请求共用，读取时返回复制后的对象，调用方修改查询结果不影响缓存
+ */
+@Slf4j
+public class MybatisRedisCache implements Cache {
+
+    //由RedisConfiguration在创建缓存管理器时设置，MyBatis通过反射创建本类，无法注入
+    private static volatile TwoLevelCacheManager cacheManager;
+
+    private static final RedisSerializer<Object> COPIER = new SmileRedisSerializer();
+
+    private final String id;
+
+    private volatile org.springframework.cache.Cache delegate;
+
+    public MybatisRedisCache(String id) {
+        this.id = id;
+    }
+
+    public static void setCacheManager(TwoLevelCacheManager cacheManager) {
+        MybatisRedisCache.cacheManager = cacheManager;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        //MyBatis对未命中且没有结果的查询也会写入null，不缓存
+        org.springframework.cache.Cache cache = delegate();
+        if (cache == null || value == null) {
+            return;
+        }
+        cache.put(cacheKey(key), value);
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        org.springframework.cache.Cache cache = delegate();
+        if (cache == null) {
+            return null;
+        }
+        org.springframework.cache.Cache.ValueWrapper wrapper = cache.get(cacheKey(key));
+        return wrapper == null ? null : COPIER.deserialize(COPIER.serialize(wrapper.get()));
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        org.springframework.cache.Cache cache = delegate();
+        if (cache != null) {
+            cache.evict(cacheKey(key));
+        }
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        org.springframework.cache.Cache cache = delegate();
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.clear();
+        } catch (RuntimeException e) {
+            //Redis中的旧数据在过期后失效
+            log.error("清空MyBatis二级缓存失败：{}，{}", id, e.getMessage());
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return 0;
+    }
+
+    private org.springframework.cache.Cache delegate() {
+        org.springframework.cache.Cache cache = delegate;
+        if (cache == null && cacheManager != null) {
+            cache = cacheManager.getCache("mybatis:" + id);
+            delegate = cache;
+        }
+        return cache;
+    }
+
+    /**
+     * MyBatis的CacheKey包含语句id、完整SQL和参数，取摘要作为Redis key，前面保留语句名称便于排查
+     * @param key
+     * @return
+     */
+    private static String cacheKey(Object key) {
+        String text = String.valueOf(key);
+        //CacheKey的格式为 hashcode:checksum:语句id:offset:limit:sql:参数...
+        String[] parts = text.split(":", 4);
+        String statementId = parts.length > 2 ? parts[2].substring(parts[2].lastIndexOf('.') + 1) : "";
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return statementId + ":" + HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MybatisRedisCache other && id.equals(other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+}
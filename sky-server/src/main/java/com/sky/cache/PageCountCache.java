@@ -0,0 +1,129 @@
+package com.sky.cache;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageHelper;
+import com.sky.properties.PageCountProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 分页查询总数缓存
+ * 同一mapper、同一组查询条件（不含页码）翻页时复用第一次查询的总数，只执行limit查询，不再执行count；
+ * 该mapper执行增删改后由PageCountInvalidationInterceptor递增版本号，之前缓存的总数全部失效
+ */
+@Component
+@Slf4j
+public class PageCountCache {
+
+    //不属于查询条件的字段：分页参数，以及服务端按配置和查询条件设置的字段（搜索方式、反转的手机号）
+    private static final Set<String> IGNORED_FIELDS = Set.of("page", "pageSize", "cursorTime", "cursorId",
+            "searchMode", "phoneReversed");
+
+    private final Cache<String, Long> counts;
+
+    //每个mapper namespace的写版本号
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public PageCountCache(PageCountProperties pageCountProperties) {
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(pageCountProperties.getMaximumSize())
+                .expireAfterWrite(pageCountProperties.getTtl())
+                .build();
+    }
+
+    /**
+     * 分页查询，总数已缓存时不执行count
+     * @param mapperType 执行查询的mapper，其增删改使缓存的总数失效
+     * @param query 查询条件，页码、每页条数不参与缓存key
+     * @param pageNum
+     * @param pageSize
+     * @param select 执行分页查询的mapper方法
+     * @return
+     */
+    public <E> Page<E> page(Class<?> mapperType, Object query, int pageNum, int pageSize, Supplier<Page<E>> select) {
+        return page(mapperType, query, pageNum, pageSize, select, null);
+    }
+
+    /**
+     * 分页查询，总数已缓存时不执行count；查询条件为空且提供了estimator时，用估算值作为总数
+     * @param mapperType 执行查询的mapper，其增删改使缓存的总数失效
+     * @param query 查询条件，页码、每页条数不参与缓存key
+     * @param pageNum
+     * @param pageSize
+     * @param select 执行分页查询的mapper方法
+     * @param estimator 估算总数，为null时总是精确计数
+     * @return
+     */
+    public <E> Page<E> page(Class<?> mapperType, Object query, int pageNum, int pageSize,
+                            Supplier<Page<E>> select, Supplier<Long> estimator) {
+        String namespace = mapperType.getName();
+        Map<String, Object> conditions = normalize(query);
+        String key = namespace + ":" + version(namespace).get() + ":" + JSON.toJSONString(conditions);
+        Long total = counts.getIfPresent(key);
+        if (total == null && conditions.isEmpty() && estimator != null) {
+            total = estimator.get();
+            if (total != null) {
+                counts.put(key, total);
+            }
+        }
+        //总数已知时只执行分页查询
+        PageHelper.startPage(pageNum, pageSize, total == null);
+        Page<E> page = select.get();
+        if (total == null) {
+            counts.put(key, page.getTotal());
+        } else {
+            page.setTotal(total);
+        }
+        return page;
+    }
+
+    /**
+     * mapper执行了增删改，丢弃其缓存的总数
+     * @param namespace mapper接口的全限定名
+     */
+    public void invalidate(String namespace) {
+        version(namespace).incrementAndGet();
+    }
+
+    private AtomicLong version(String namespace) {
+        return versions.computeIfAbsent(namespace, key -> new AtomicLong());
+    }
+
+    /**
+     * 查询条件规范化：去掉分页参数等非查询条件字段、null和空字符串（xml中均视为不限制），按字段名排序
+     * @param query
+     * @return
+     */
+    private static Map<String, Object> normalize(Object query) {
+        Map<String, Object> conditions = new TreeMap<>();
+        if (query == null) {
+            return conditions;
+        }
+        JSONObject json = (JSONObject) JSON.toJSON(query);
+        json.forEach((field, value) -> {
+            if (IGNORED_FIELDS.contains(field) || value == null) {
+                return;
+            }
+            if (value instanceof String text) {
+                if (text.isBlank()) {
+                    return;
+                }
+                value = text.trim();
+            }
+            conditions.put(field, value);
+        });
+        return conditions;
+    }
+}
@@ -0,0 +1,42 @@
+package com.sky.cache;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * MyBatis插件：mapper执行insert/update/delete后，使该mapper缓存的分页总数失效
+ * 在事务中执行时提交后再失效一次，避免提交前的并发查询把旧总数重新缓存
+ */
+@Component
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+public class PageCountInvalidationInterceptor implements Interceptor {
+
+    @Autowired
+    private PageCountCache pageCountCache;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        MappedStatement mappedStatement = (MappedStatement) invocation.getArgs()[0];
+        String id = mappedStatement.getId();
+        String namespace = id.substring(0, id.lastIndexOf('.'));
+        pageCountCache.invalidate(namespace);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pageCountCache.invalidate(namespace);
+                }
+            });
+        }
+        return result;
+    }
+}
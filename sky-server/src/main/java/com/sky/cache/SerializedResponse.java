@@ -0,0 +1,141 @@
+package com.sky.cache;
+
+import lombok.Getter;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 序列化好的响应体：Result包装后的json字节、gzip压缩结果和ETag，构建后不再修改
+ * 控制器直接写出这些字节，不再每次请求都执行Jackson序列化
+ */
+@Getter
+public final class SerializedResponse {
+
+    //小于该大小的响应不压缩
+    private static final int GZIP_MIN_BYTES = 256;
+
+    //gzip压缩内容使用单独的ETag，与未压缩内容区分
+    private static final String GZIP_ETAG_SUFFIX = "-gzip\"";
+
+    //强校验ETag，由内容摘要生成，内容不变时保持不变
+    private final String etag;
+
+    private final byte[] json;
+
+    //json的gzip压缩结果，响应较小时为null
+    private final byte[] gzip;
+
+    public SerializedResponse(String etag, byte[] json, byte[] gzip) {
+        this.etag = etag;
+        this.json = json;
+        this.gzip = gzip;
+    }
+
+    /**
+     * 根据json生成ETag，足够大时同时压缩
+     * @param json
+     * @return
+     */
+    public static SerializedResponse of(byte[] json) {
+        return new SerializedResponse(etag(json), json, json.length < GZIP_MIN_BYTES ? null : gzip(json));
+    }
+
+    /**
+     * 写出响应：If-None-Match匹配时返回304；客户端支持gzip且有压缩结果时返回压缩内容
+     * @param ifNoneMatch
+     * @param acceptEncoding
+     * @return
+     */
+    public ResponseEntity<byte[]> toResponseEntity(String ifNoneMatch, String acceptEncoding) {
+        return toResponseEntity(etag, json, gzip, ifNoneMatch, acceptEncoding);
+    }
+
+    /**
+     * 写出响应：If-None-Match匹配时返回304；客户端支持gzip且有压缩结果时返回压缩内容
+     * @param etag
+     * @param json
+     * @param gzip 为null时总是返回未压缩内容
+     * @param ifNoneMatch
+     * @param acceptEncoding
+     * @return
+     */
+    public static ResponseEntity<byte[]> toResponseEntity(String etag, byte[] json, byte[] gzip,
+                                                          String ifNoneMatch, String acceptEncoding) {
+        boolean useGzip = gzip != null && acceptEncoding != null && acceptEncoding.contains("gzip");
+        String responseEtag = useGzip ? gzipEtag(etag) : etag;
+
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(responseEtag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(responseEtag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (useGzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzip);
+        }
+        return builder.body(json);
+    }
+
+    /**
+     * 内容摘要ETag：SHA-256的前16字节
+     * @param bytes
+     * @return
+     */
+    public static String etag(byte[] bytes) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * If-None-Match中是否包含当前内容的ETag（压缩或未压缩均可）
+     * @param ifNoneMatch
+     * @param etag
+     * @return
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + GZIP_ETAG_SUFFIX;
+    }
+}
@@ -0,0 +1,99 @@
+package com.sky.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于Jackson Smile（二进制JSON）的缓存值序列化器
+ * 相比JDK序列化不写入类描述信息，体积更小、解码更快；非final类型记录类名以便还原为原来的类型，
+ * 只允许反序列化项目自身的类、数字类型和java.util/java.math/java.time中的类型；
+ * 每种类型第一次序列化时读回一次，允许范围之外的类型在写入时抛出异常，而不是写入Redis后每次读取都失败、静默地未命中
+ */
+public class SmileRedisSerializer implements RedisSerializer<Object> {
+
+    private final ObjectWriter writer;
+
+    private final ObjectReader reader;
+
+    //已验证可以读回的类型：根对象的类名，集合再加上第一个元素的类名
+    private final Set<String> verifiedTypes = ConcurrentHashMap.newKeySet();
+
+    public SmileRedisSerializer() {
+        //重复出现的短字符串（类名、口味等）只写一次，之后用引用代替
+        SmileFactory smileFactory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        ObjectMapper objectMapper = new ObjectMapper(smileFactory);
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        objectMapper.activateDefaultTyping(BasicPolymorphicTypeValidator.builder()
+                        .allowIfSubType("com.sky.")
+                        .allowIfSubType("java.util.")
+                        .allowIfSubType("java.math.")
+                        .allowIfSubType("java.time.")
+                        //Long等非自然类型的数字在Object位置上会带类型信息
+                        .allowIfSubType(Number.class)
+                        .build(),
+                ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        //根对象同样记录类型
+        this.writer = objectMapper.writerFor(Object.class);
+        this.reader = objectMapper.readerFor(Object.class);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] bytes;
+        try {
+            bytes = writer.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("缓存值序列化失败：" + value.getClass().getName(), e);
+        }
+        String type = typeOf(value);
+        if (!verifiedTypes.contains(type)) {
+            try {
+                reader.readValue(bytes);
+            } catch (IOException e) {
+                throw new SerializationException("缓存值类型不在反序列化允许范围内：" + type, e);
+            }
+            verifiedTypes.add(type);
+        }
+        return bytes;
+    }
+
+    private static String typeOf(Object value) {
+        if (value instanceof Collection<?> collection && !collection.isEmpty()) {
+            Object first = collection.iterator().next();
+            return value.getClass().getName() + "<" + (first == null ? "null" : first.getClass().getName()) + ">";
+        }
+        return value.getClass().getName();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            return reader.readValue(bytes);
+        } catch (IOException e) {
+            throw new SerializationException("缓存值反序列化失败", e);
+        }
+    }
+}
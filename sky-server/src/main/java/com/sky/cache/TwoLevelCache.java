@@ -0,0 +1,352 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 两级缓存：本地Caffeine(L1) + Redis(L2)
+ * 读取时依次查L1、L2，L2命中后回填L1；写入和失效时同时操作两级，并通知其他节点丢弃各自的L1。
+ * Redis中的key与RedisCacheManager一致，为 缓存名称::key
+ * 通过get(key, valueLoader)（@Cacheable(sync = true)）读取时：
+ * 同一个key在本节点只有一个线程回源，其余线程等待结果；即将过期的key被命中时在后台提前刷新，请求继续使用旧值
+ * 空集合结果使用较短的过期时间缓存，不存在的分类等反复查询时不再每次回源
+ * 命中、未命中、回源耗时等记录在TwoLevelCacheStatistics中
+ */
+@Slf4j
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+
+    private final Cache<String, LocalValue> local;
+
+    private final RedisTemplate<String, byte[]> redisTemplate;
+
+    private final RedisSerializer<Object> serializer;
+
+    private final Duration ttl;
+
+    //空集合的过期时间
+    private final Duration emptyTtl;
+
+    private final double ttlJitter;
+
+    //剩余过期时间低于该值（毫秒）时提前刷新
+    private final long refreshAheadMillis;
+
+    private final Executor refreshExecutor;
+
+    private final TwoLevelCacheManager cacheManager;
+
+    private final TwoLevelCacheStatistics statistics;
+
+    //正在后台刷新的key
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    TwoLevelCache(String name, Cache<String, LocalValue> local, RedisTemplate<String, byte[]> redisTemplate,
+                  RedisSerializer<Object> serializer, Duration ttl, Duration emptyTtl, double ttlJitter, double refreshAhead,
+                  Executor refreshExecutor, TwoLevelCacheManager cacheManager, TwoLevelCacheStatistics statistics) {
+        //不缓存空值
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.redisTemplate = redisTemplate;
+        this.serializer = serializer;
+        this.ttl = ttl;
+        this.emptyTtl = emptyTtl;
+        this.ttlJitter = ttlJitter;
+        this.refreshAheadMillis = (long) (ttl.toMillis() * refreshAhead);
+        this.refreshExecutor = refreshExecutor;
+        this.cacheManager = cacheManager;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String cacheKey = String.valueOf(key);
+        LocalValue localValue = local.getIfPresent(cacheKey);
+        if (localValue != null) {
+            statistics.recordLocalHit();
+            return localValue.value;
+        }
+        localValue = loadFromRedis(cacheKey);
+        if (localValue == null) {
+            statistics.recordMiss();
+            return null;
+        }
+        statistics.recordRedisHit();
+        local.put(cacheKey, localValue);
+        return localValue.value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String cacheKey = String.valueOf(key);
+        LocalValue localValue = local.getIfPresent(cacheKey);
+        if (localValue != null) {
+            statistics.recordLocalHit();
+            refreshIfExpiring(cacheKey, localValue, valueLoader);
+            return (T) localValue.value;
+        }
+        //同一个key在本节点只有一个线程回源
+        localValue = local.get(cacheKey, k -> {
+            LocalValue cached = loadFromRedis(k);
+            if (cached != null) {
+                statistics.recordRedisHit();
+                return cached;
+            }
+            statistics.recordMiss();
+            Object value;
+            long start = System.nanoTime();
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                statistics.recordLoadFailure();
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            statistics.recordLoad(System.nanoTime() - start);
+            if (value == null) {
+                return null;
+            }
+            return writeToRedis(k, value);
+        });
+        if (localValue == null) {
+            return null;
+        }
+        //从Redis读到的值也可能即将过期
+        refreshIfExpiring(cacheKey, localValue, valueLoader);
+        return (T) localValue.value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String cacheKey = String.valueOf(key);
+        local.put(cacheKey, writeToRedis(cacheKey, toStoreValue(value)));
+        statistics.recordPut();
+        cacheManager.publishInvalidation(name, cacheKey);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String cacheKey = String.valueOf(key);
+        //Redis不可用时仍然清除本地缓存，Redis中的旧值在过期后失效
+        try {
+            redisTemplate.delete(redisKey(cacheKey));
+        } catch (RuntimeException e) {
+            statistics.recordRedisError();
+            log.warn("删除Redis缓存失败，缓存：{}，key：{}，{}", name, cacheKey, e.getMessage());
+        }
+        local.invalidate(cacheKey);
+        statistics.recordEviction();
+        cacheManager.publishInvalidation(name, cacheKey);
+    }
+
+    @Override
+    public void clear() {
+        byte[] pattern = (name + "::*").getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                List<byte[]> keys = new ArrayList<>();
+                try (Cursor<byte[]> cursor = connection.keyCommands()
+                        .scan(ScanOptions.scanOptions().match(pattern).count(500).build())) {
+                    while (cursor.hasNext()) {
+                        keys.add(cursor.next());
+                        if (keys.size() == 500) {
+                            connection.keyCommands().del(keys.toArray(new byte[0][]));
+                            keys.clear();
+                        }
+                    }
+                }
+                if (!keys.isEmpty()) {
+                    connection.keyCommands().del(keys.toArray(new byte[0][]));
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            //Redis不可用时仍然清空本地缓存，未删除的Redis条目在过期后失效
+            statistics.recordRedisError();
+            log.warn("清空Redis缓存失败，缓存：{}，{}", name, e.getMessage());
+        }
+        local.invalidateAll();
+        cacheManager.publishInvalidation(name, null);
+    }
+
+    /**
+     * 统计快照，附带本地缓存当前的条目数和占用的权重（字节）
+     * @return
+     */
+    public Map<String, Object> statistics() {
+        Map<String, Object> map = statistics.snapshot();
+        map.put("localSize", local.estimatedSize());
+        local.policy().eviction().ifPresent(eviction -> {
+            map.put("localWeightedBytes", eviction.weightedSize().orElse(0));
+            map.put("localMaximumBytes", eviction.getMaximum());
+        });
+        return map;
+    }
+
+    public TwoLevelCacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * 其他节点修改了缓存，丢弃本地的条目
+     * @param key 为null时清空本地缓存
+     */
+    void evictLocal(String key) {
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+
+    /**
+     * 缓存即将过期时在后台重新加载，同一个key同时只有一个刷新任务
+     * @param cacheKey
+     * @param localValue
+     * @param valueLoader
+     */
+    private void refreshIfExpiring(String cacheKey, LocalValue localValue, Callable<?> valueLoader) {
+        //空结果很快过期，直接等过期后回源
+        if (isEmpty(localValue.value)
+                || localValue.expiresAt - System.currentTimeMillis() > refreshAheadMillis || !refreshing.add(cacheKey)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                statistics.recordRefresh();
+                long start = System.nanoTime();
+                try {
+                    Object value = valueLoader.call();
+                    statistics.recordLoad(System.nanoTime() - start);
+                    if (value != null) {
+                        local.put(cacheKey, writeToRedis(cacheKey, value));
+                        //其他节点重新从Redis读取新值
+                        cacheManager.publishInvalidation(name, cacheKey);
+                    }
+                } catch (Exception e) {
+                    statistics.recordLoadFailure();
+                    log.warn("缓存提前刷新失败，缓存：{}，key：{}，{}", name, cacheKey, e.getMessage());
+                } finally {
+                    refreshing.remove(cacheKey);
+                }
+            });
+        } catch (RuntimeException e) {
+            //刷新线程池已满，等待下一次命中
+            refreshing.remove(cacheKey);
+        }
+    }
+
+    /**
+     * 从Redis读取值和剩余过期时间，Redis不可用时视为未命中
+     * @param cacheKey
+     * @return
+     */
+    private LocalValue loadFromRedis(String cacheKey) {
+        byte[] redisKey = redisKey(cacheKey).getBytes(StandardCharsets.UTF_8);
+        List<Object> results;
+        try {
+            results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.stringCommands().get(redisKey);
+                connection.keyCommands().pTtl(redisKey);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            statistics.recordRedisError();
+            log.warn("读取Redis缓存失败，缓存：{}，key：{}，{}", name, cacheKey, e.getMessage());
+            return null;
+        }
+        byte[] bytes = (byte[]) results.get(0);
+        if (bytes == null) {
+            return null;
+        }
+        Object value;
+        try {
+            value = serializer.deserialize(bytes);
+        } catch (SerializationException e) {
+            //切换序列化方式后Redis中残留的旧格式数据，视为未命中，回源后覆盖
+            log.warn("Redis缓存反序列化失败，缓存：{}，key：{}，{}", name, cacheKey, e.getMessage());
+            return null;
+        }
+        Long pttl = (Long) results.get(1);
+        long expiresAt = pttl == null || pttl < 0 ? Long.MAX_VALUE : System.currentTimeMillis() + pttl;
+        return new LocalValue(value, bytes.length, expiresAt);
+    }
+
+    /**
+     * 写入Redis，过期时间随机增加一部分，避免同时写入的key同时过期；空集合使用emptyTtl；Redis不可用时只保留本地缓存
+     * @param cacheKey
+     * @param value
+     * @return
+     */
+    private LocalValue writeToRedis(String cacheKey, Object value) {
+        byte[] bytes = serializer.serialize(value);
+        long baseMillis = isEmpty(value) ? emptyTtl.toMillis() : ttl.toMillis();
+        long ttlMillis = baseMillis + (long) (baseMillis * ttlJitter * ThreadLocalRandom.current().nextDouble());
+        statistics.recordValueSize(bytes.length);
+        try {
+            redisTemplate.opsForValue().set(redisKey(cacheKey), bytes, Duration.ofMillis(ttlMillis));
+        } catch (RuntimeException e) {
+            statistics.recordRedisError();
+            log.warn("写入Redis缓存失败，缓存：{}，key：{}，{}", name, cacheKey, e.getMessage());
+        }
+        return new LocalValue(value, bytes.length, System.currentTimeMillis() + ttlMillis);
+    }
+
+    private static boolean isEmpty(Object value) {
+        return value instanceof Collection<?> collection && collection.isEmpty();
+    }
+
+    private String redisKey(String cacheKey) {
+        return name + "::" + cacheKey;
+    }
+
+    /**
+     * 本地缓存的值，附带序列化后的大小用于按内存限制淘汰，以及Redis中的过期时间
+     */
+    static final class LocalValue {
+
+        final Object value;
+
+        final int weight;
+
+        //Redis中该key的过期时间戳（毫秒），本地条目不会比它更晚过期
+        final long expiresAt;
+
+        LocalValue(Object value, int weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
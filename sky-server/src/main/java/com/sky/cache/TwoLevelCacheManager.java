@@ -0,0 +1,181 @@
+package com.sky.cache;
+
+import com.alibaba.fastjson.JSONObject;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.sky.properties.CacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 两级缓存管理器，按名称创建TwoLevelCache
+ * 同时作为缓存失效频道的监听者，收到其他节点的失效通知后丢弃本地缓存
+ */
+@Slf4j
+public class TwoLevelCacheManager extends AbstractCacheManager implements MessageListener {
+
+    private final CacheProperties cacheProperties;
+
+    private final RedisTemplate<String, byte[]> redisTemplate;
+
+    private final RedisSerializer<Object> serializer;
+
+    //本节点标识，忽略自己发出的失效通知
+    private final String nodeId = UUID.randomUUID().toString();
+
+    //后台提前刷新缓存的线程池，队列满时放弃本次刷新
+    private final ThreadPoolExecutor refreshExecutor;
+
+    public TwoLevelCacheManager(RedisConnectionFactory redisConnectionFactory, CacheProperties cacheProperties) {
+        this.cacheProperties = cacheProperties;
+        this.serializer = createSerializer(cacheProperties);
+
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(redisConnectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+        this.redisTemplate = template;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.refreshExecutor = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(256), runnable -> {
+            Thread thread = new Thread(runnable, "cache-refresh-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    protected Collection<? extends org.springframework.cache.Cache> loadCaches() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    protected org.springframework.cache.Cache getMissingCache(String name) {
+        Duration ttl = cacheProperties.getTtl(name);
+        CacheProperties.Local localProperties = cacheProperties.getLocal();
+        long localTtlNanos = localProperties.getTtl().compareTo(ttl) < 0 ? localProperties.getTtl().toNanos() : ttl.toNanos();
+
+        //Caffeine不能同时限制条目数和权重：每个条目的权重至少为 内存上限/条目上限，条目数也就不会超过上限
+        long maximumBytes = localProperties.getMaximumBytes().toBytes();
+        long minWeight = Math.max(1, maximumBytes / Math.max(1, localProperties.getMaximumSize()));
+        TwoLevelCacheStatistics statistics = new TwoLevelCacheStatistics();
+        Cache<String, TwoLevelCache.LocalValue> local = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((String key, TwoLevelCache.LocalValue value) -> (int) Math.min(Integer.MAX_VALUE, Math.max(minWeight, value.weight)))
+                //本地条目在本地过期时间和Redis中的剩余过期时间中较早的时刻过期
+                .expireAfter(new Expiry<String, TwoLevelCache.LocalValue>() {
+                    @Override
+                    public long expireAfterCreate(String key, TwoLevelCache.LocalValue value, long currentTime) {
+                        long remainingMillis = value.expiresAt - System.currentTimeMillis();
+                        return Math.max(0, Math.min(localTtlNanos, TimeUnit.MILLISECONDS.toNanos(remainingMillis)));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, TwoLevelCache.LocalValue value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, TwoLevelCache.LocalValue value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .removalListener((String key, TwoLevelCache.LocalValue value, RemovalCause cause) -> statistics.recordLocalRemoval(cause))
+                .build();
+        log.info("创建两级缓存：{}，Redis过期时间：{}，本地过期时间：{}", name, ttl, Duration.ofNanos(localTtlNanos));
+        return new TwoLevelCache(name, local, redisTemplate, serializer, ttl, cacheProperties.getEmptyTtl(),
+                cacheProperties.getTtlJitter(), cacheProperties.getRefreshAhead(), refreshExecutor, this, statistics);
+    }
+
+    /**
+     * 所有已创建缓存的统计，按缓存名称排序
+     * @return
+     */
+    public Map<String, Map<String, Object>> statistics() {
+        Map<String, Map<String, Object>> map = new TreeMap<>();
+        for (String name : getCacheNames()) {
+            if (lookupCache(name) instanceof TwoLevelCache cache) {
+                map.put(name, cache.statistics());
+            }
+        }
+        return map;
+    }
+
+    /**
+     * 丢弃本节点该缓存的全部本地条目，不修改Redis
+     * @param cacheName
+     */
+    public void evictLocal(String cacheName) {
+        if (lookupCache(cacheName) instanceof TwoLevelCache cache) {
+            cache.evictLocal(null);
+        }
+    }
+
+    /**
+     * 按配置创建缓存值的序列化器
+     * @param cacheProperties
+     * @return
+     */
+    private RedisSerializer<Object> createSerializer(CacheProperties cacheProperties) {
+        if ("jdk".equalsIgnoreCase(cacheProperties.getSerializer())) {
+            return new JdkSerializationRedisSerializer(getClass().getClassLoader());
+        }
+        if (!"smile".equalsIgnoreCase(cacheProperties.getSerializer())) {
+            throw new IllegalArgumentException("不支持的缓存序列化方式：" + cacheProperties.getSerializer());
+        }
+        return new CompressingRedisSerializer(new SmileRedisSerializer(), cacheProperties.getCompressThreshold().toBytes());
+    }
+
+    /**
+     * 通知其他节点丢弃本地缓存
+     * @param cacheName
+     * @param key 为null时清空整个缓存
+     */
+    void publishInvalidation(String cacheName, String key) {
+        JSONObject message = new JSONObject();
+        message.put("node", nodeId);
+        message.put("cache", cacheName);
+        message.put("key", key);
+        try {
+            redisTemplate.convertAndSend(cacheProperties.getInvalidationChannel(),
+                    message.toJSONString().getBytes(StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            //通知失败时其他节点的本地缓存在本地过期时间后失效
+            log.warn("发送缓存失效通知失败，缓存：{}，key：{}，{}", cacheName, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        JSONObject body = JSONObject.parseObject(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (nodeId.equals(body.getString("node"))) {
+            return;
+        }
+        org.springframework.cache.Cache cache = lookupCache(body.getString("cache"));
+        if (cache instanceof TwoLevelCache twoLevelCache) {
+            log.debug("收到缓存失效通知：{}", body);
+            twoLevelCache.evictLocal(body.getString("key"));
+        }
+    }
+}
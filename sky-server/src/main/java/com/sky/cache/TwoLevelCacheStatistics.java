@@ -0,0 +1,137 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.sky.utils.LatencyHistogram;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个两级缓存的运行统计，线程安全
+ * 命中分为本地命中和Redis命中，未命中时记录回源耗时；本地条目按移除原因计数，Redis中的值记录序列化后的大小
+ */
+public class TwoLevelCacheStatistics {
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    //回源（执行被缓存的方法）耗时，包括后台提前刷新
+    private final LatencyHistogram loadTime = new LatencyHistogram();
+
+    //本地条目的移除原因：SIZE为超出容量被淘汰，EXPIRED为过期，EXPLICIT为主动删除，REPLACED为被新值覆盖
+    private final Map<RemovalCause, LongAdder> localRemovals = new EnumMap<>(RemovalCause.class);
+
+    //写入Redis的值的大小（字节）
+    private final LongAdder valueCount = new LongAdder();
+    private final LongAdder valueBytes = new LongAdder();
+    private final AtomicLong maxValueBytes = new AtomicLong();
+
+    public TwoLevelCacheStatistics() {
+        for (RemovalCause cause : RemovalCause.values()) {
+            localRemovals.put(cause, new LongAdder());
+        }
+    }
+
+    void recordLocalHit() {
+        localHits.increment();
+    }
+
+    void recordRedisHit() {
+        redisHits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordLoad(long nanos) {
+        loadTime.record(nanos);
+    }
+
+    void recordLoadFailure() {
+        loadFailures.increment();
+    }
+
+    void recordRefresh() {
+        refreshes.increment();
+    }
+
+    void recordRedisError() {
+        redisErrors.increment();
+    }
+
+    void recordPut() {
+        puts.increment();
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    void recordLocalRemoval(RemovalCause cause) {
+        localRemovals.get(cause).increment();
+    }
+
+    void recordValueSize(int bytes) {
+        valueCount.increment();
+        valueBytes.add(bytes);
+        maxValueBytes.accumulateAndGet(bytes, Math::max);
+    }
+
+    /**
+     * 总请求数
+     * @return
+     */
+    public long getRequestCount() {
+        return localHits.sum() + redisHits.sum() + misses.sum();
+    }
+
+    /**
+     * 命中率（本地命中 + Redis命中），没有请求时为0
+     * @return
+     */
+    public double getHitRate() {
+        long requests = getRequestCount();
+        return requests == 0 ? 0.0 : (double) (localHits.sum() + redisHits.sum()) / requests;
+    }
+
+    /**
+     * 统计快照
+     * @return
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("requests", getRequestCount());
+        map.put("hitRate", getHitRate());
+        map.put("localHits", localHits.sum());
+        map.put("redisHits", redisHits.sum());
+        map.put("misses", misses.sum());
+        map.put("loadFailures", loadFailures.sum());
+        map.put("refreshes", refreshes.sum());
+        map.put("redisErrors", redisErrors.sum());
+        map.put("puts", puts.sum());
+        map.put("evictions", evictions.sum());
+        map.put("loadTime", loadTime.snapshot());
+
+        Map<String, Long> removals = new LinkedHashMap<>();
+        localRemovals.forEach((cause, count) -> removals.put(cause.name(), count.sum()));
+        map.put("localRemovals", removals);
+
+        long count = valueCount.sum();
+        Map<String, Object> valueSize = new LinkedHashMap<>();
+        valueSize.put("count", count);
+        valueSize.put("avgBytes", count == 0 ? 0 : valueBytes.sum() / count);
+        valueSize.put("maxBytes", maxValueBytes.get());
+        map.put("valueSize", valueSize);
+        return map;
+    }
+}
@@ -0,0 +1,53 @@
+package com.sky.cart;
+
+import com.sky.entity.ShoppingCart;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 购物车存储
+ * 通过配置项 sky.cart.store 选择实现：mysql（默认，shopping_cart表）或 redis（每个用户一个hash，定时写回shopping_cart表）
+ */
+public interface CartStore {
+
+    /**
+     * 商品数量加一，购物车中还没有该商品时，先由enricher补全名称、图片、金额再新增
+     * @param item 用户id、菜品id/套餐id、口味
+     * @param enricher
+     */
+    void add(ShoppingCart item, Consumer<ShoppingCart> enricher);
+
+    /**
+     * 商品数量减一，减到0时删除
+     * @param item 用户id、菜品id/套餐id、口味
+     */
+    void sub(ShoppingCart item);
+
+    /**
+     * 查询用户的购物车
+     * @param userId
+     * @return
+     */
+    List<ShoppingCart> list(Long userId);
+
+    /**
+     * 清空用户的购物车
+     * @param userId
+     */
+    void clear(Long userId);
+
+    /**
+     * 批量加入购物车，商品信息已完整；购物车中已有的商品累加数量
+     * @param items
+     */
+    void addAll(List<ShoppingCart> items);
+
+    /**
+     * 批量变更商品数量，数量减到0及以下的商品被删除，不在购物车中的商品由enricher补全信息后新增
+     * @param userId
+     * @param deltas 每个商品一条，number为数量变化，正数加购、负数减购
+     * @param enricher
+     */
+    void applyBatch(Long userId, List<ShoppingCart> deltas, Consumer<ShoppingCart> enricher);
+}
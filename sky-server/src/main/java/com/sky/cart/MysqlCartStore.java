@@ -0,0 +1,97 @@
+package com.sky.cart;
+
+import com.sky.entity.ShoppingCart;
+import com.sky.mapper.ShoppingCartMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 基于shopping_cart表的购物车存储
+ * 数量变更都由单条SQL原子完成，依赖表上的唯一键uk_shopping_cart_item避免并发加购产生重复行
+ */
+@Component
+@ConditionalOnProperty(name = "sky.cart.store", havingValue = "mysql", matchIfMissing = true)
+public class MysqlCartStore implements CartStore {
+
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+
+    @Override
+    public void add(ShoppingCart item, Consumer<ShoppingCart> enricher) {
+        //如果已经存在，只需要将数量加一
+        if (shoppingCartMapper.incrementNumber(item) > 0) {
+            return;
+        }
+        //如果不存在，需要插入一条购物车数据；并发插入同一商品时由唯一键转为数量累加
+        enricher.accept(item);
+        item.setNumber(1);
+        item.setCreateTime(LocalDateTime.now());
+        shoppingCartMapper.upsertBatch(Collections.singletonList(item));
+    }
+
+    @Override
+    public void sub(ShoppingCart item) {
+        //当前商品在购物车中的份数>1，修改份数
+        if (shoppingCartMapper.decrementNumber(item) == 0) {
+            //当前商品在购物车中的份数为1，直接删除当前记录
+            shoppingCartMapper.deleteLastOne(item);
+        }
+    }
+
+    @Override
+    public List<ShoppingCart> list(Long userId) {
+        return shoppingCartMapper.list(ShoppingCart.builder()
+                .userId(userId)
+                .build());
+    }
+
+    @Override
+    public void clear(Long userId) {
+        shoppingCartMapper.deleteByUserId(userId);
+    }
+
+    @Override
+    public void addAll(List<ShoppingCart> items) {
+        //购物车中已有的商品累加数量，与RedisCartStore一致
+        shoppingCartMapper.upsertBatch(items);
+    }
+
+    @Override
+    @Transactional
+    public void applyBatch(Long userId, List<ShoppingCart> deltas, Consumer<ShoppingCart> enricher) {
+        List<ShoppingCart> increments = new ArrayList<>();
+        List<ShoppingCart> decrements = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (ShoppingCart delta : deltas) {
+            if (delta.getNumber() > 0) {
+                //加购的商品可能还不在购物车中，补全商品信息
+                enricher.accept(delta);
+                delta.setUserId(userId);
+                delta.setCreateTime(now);
+                increments.add(delta);
+            } else if (delta.getNumber() < 0) {
+                decrements.add(ShoppingCart.builder()
+                        .dishId(delta.getDishId())
+                        .setmealId(delta.getSetmealId())
+                        .dishFlavor(delta.getDishFlavor())
+                        .number(-delta.getNumber())
+                        .build());
+            }
+        }
+        if (!increments.isEmpty()) {
+            shoppingCartMapper.upsertBatch(increments);
+        }
+        if (!decrements.isEmpty()) {
+            shoppingCartMapper.subtractBatch(userId, decrements);
+            shoppingCartMapper.deleteEmptyByUserId(userId);
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package com.sky.cart;
+
+import com.alibaba.fastjson.JSON;
+import com.sky.entity.ShoppingCart;
+import com.sky.mapper.ShoppingCartMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 基于Redis的购物车存储
+ * 每个用户两个hash：CART:{userId} 保存 商品 -> 数量，CART_ITEM:{userId} 保存 商品 -> 名称、图片、金额等信息(json)；
+ * 数量变更通过Lua脚本原子执行，加购、减购都只需一次Redis往返，不访问MySQL。
+ * shopping_cart表保存购物车的持久副本：变更过的用户记入CART_DIRTY集合，由定时任务把这些用户的购物车整体写回；
+ * 数量hash中的_loaded字段表示Redis中的购物车是完整的，key过期、被淘汰或Redis重启丢失数据后，下一次访问时先从shopping_cart表加载
+ */
+@Component
+@ConditionalOnProperty(name = "sky.cart.store", havingValue = "redis")
+@Slf4j
+public class RedisCartStore implements CartStore {
+
+    private static final String QUANTITY_KEY_PREFIX = "CART:";
+    private static final String ITEM_KEY_PREFIX = "CART_ITEM:";
+
+    //有变更、等待写回shopping_cart表的用户id
+    private static final String DIRTY_KEY = "CART_DIRTY";
+
+    //同一时间只有一个节点执行写回
+    private static final String FLUSH_LOCK_KEY = "CART_FLUSH_LOCK";
+    private static final Duration FLUSH_LOCK_TTL = Duration.ofSeconds(60);
+
+    //每次从待写回集合中取出的用户数
+    private static final int FLUSH_BATCH = 500;
+
+    //数量hash中表示购物车已从shopping_cart表加载的字段
+    private static final String LOADED = "_loaded";
+
+    //商品不在购物车中且未提供商品信息时返回-1
+    private static final long MISSING = -1;
+
+    //Redis中的购物车未加载时返回-2
+    private static final long NOT_LOADED = -2;
+
+    /**
+     * KEYS[1] 数量hash，KEYS[2] 商品信息hash，KEYS[3] 待写回的用户集合
+     * ARGV[1] 用户id，ARGV[2] 商品field，ARGV[3] 数量变化，ARGV[4] 过期时间(毫秒)，ARGV[5] 商品信息json(可选)
+     * 返回变更后的数量，减到0时删除该商品
+     */
+    private static final DefaultRedisScript<Long> APPLY_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('hexists', KEYS[1], '" + LOADED + "') == 0 then return " + NOT_LOADED + " end " +
+            "local delta = tonumber(ARGV[3]) " +
+            "if redis.call('hexists', KEYS[1], ARGV[2]) == 0 then " +
+            "  if delta <= 0 then return 0 end " +
+            "  if #ARGV < 5 then return " + MISSING + " end " +
+            "  redis.call('hset', KEYS[2], ARGV[2], ARGV[5]) " +
+            "end " +
+            "local n = redis.call('hincrby', KEYS[1], ARGV[2], delta) " +
+            "if n <= 0 then " +
+            "  redis.call('hdel', KEYS[1], ARGV[2]) " +
+            "  redis.call('hdel', KEYS[2], ARGV[2]) " +
+            "  n = 0 " +
+            "end " +
+            "redis.call('pexpire', KEYS[1], ARGV[4]) " +
+            "redis.call('pexpire', KEYS[2], ARGV[4]) " +
+            "redis.call('sadd', KEYS[3], ARGV[1]) " +
+            "return n", Long.class);
+
+    /**
+     * KEYS同上，ARGV[1] 用户id，ARGV[2] 过期时间(毫秒)，之后每三个参数为一个商品：field、数量变化、商品信息json
+     * 不在购物车中的商品：数量变化为正时新增，为负时忽略
+     */
+    private static final DefaultRedisScript<Long> APPLY_BATCH_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('hexists', KEYS[1], '" + LOADED + "') == 0 then return " + NOT_LOADED + " end " +
+            "for i = 3, #ARGV, 3 do " +
+            "  local field = ARGV[i] " +
+            "  local delta = tonumber(ARGV[i + 1]) " +
+            "  local exists = redis.call('hexists', KEYS[1], field) == 1 " +
+            "  if exists or delta > 0 then " +
+            "    if not exists then redis.call('hset', KEYS[2], field, ARGV[i + 2]) end " +
+            "    if redis.call('hincrby', KEYS[1], field, delta) <= 0 then " +
+            "      redis.call('hdel', KEYS[1], field) " +
+            "      redis.call('hdel', KEYS[2], field) " +
+            "    end " +
+            "  end " +
+            "end " +
+            "redis.call('pexpire', KEYS[1], ARGV[2]) " +
+            "redis.call('pexpire', KEYS[2], ARGV[2]) " +
+            "redis.call('sadd', KEYS[3], ARGV[1]) " +
+            "return redis.call('hlen', KEYS[1]) - 1", Long.class);
+
+    /**
+     * KEYS同上，ARGV[1] 过期时间(毫秒)，之后每三个参数为一个商品：field、数量、商品信息json
+     * 从shopping_cart表加载的购物车，已加载时（其他请求先完成了加载）不覆盖
+     */
+    private static final DefaultRedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('hexists', KEYS[1], '" + LOADED + "') == 1 then return 0 end " +
+            "for i = 2, #ARGV, 3 do " +
+            "  redis.call('hincrby', KEYS[1], ARGV[i], ARGV[i + 1]) " +
+            "  redis.call('hset', KEYS[2], ARGV[i], ARGV[i + 2]) " +
+            "end " +
+            "redis.call('hset', KEYS[1], '" + LOADED + "', 1) " +
+            "redis.call('pexpire', KEYS[1], ARGV[1]) " +
+            "redis.call('pexpire', KEYS[2], ARGV[1]) " +
+            "return 1", Long.class);
+
+    /**
+     * KEYS同上，ARGV[1] 用户id，ARGV[2] 过期时间(毫秒)
+     * 清空后保留_loaded字段，不再从shopping_cart表加载旧数据
+     */
+    private static final DefaultRedisScript<Long> CLEAR_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('del', KEYS[1], KEYS[2]) " +
+            "redis.call('hset', KEYS[1], '" + LOADED + "', 1) " +
+            "redis.call('pexpire', KEYS[1], ARGV[2]) " +
+            "redis.call('sadd', KEYS[3], ARGV[1]) " +
+            "return 1", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    //购物车无变更后的保留时间
+    @Value("${sky.cart.ttl:7d}")
+    private Duration ttl;
+
+    @Override
+    public void add(ShoppingCart item, Consumer<ShoppingCart> enricher) {
+        String field = field(item);
+        Long number = apply(item.getUserId(), field, 1, null);
+        if (number == MISSING) {
+            //购物车中还没有该商品，补全商品信息后新增
+            enricher.accept(item);
+            item.setCreateTime(LocalDateTime.now());
+            apply(item.getUserId(), field, 1, item);
+        }
+    }
+
+    @Override
+    public void sub(ShoppingCart item) {
+        apply(item.getUserId(), field(item), -1, null);
+    }
+
+    @Override
+    public List<ShoppingCart> list(Long userId) {
+        Map<Object, Object> quantities = stringRedisTemplate.opsForHash().entries(QUANTITY_KEY_PREFIX + userId);
+        if (!quantities.containsKey(LOADED)) {
+            load(userId);
+            quantities = stringRedisTemplate.opsForHash().entries(QUANTITY_KEY_PREFIX + userId);
+        }
+        return toItems(userId, quantities);
+    }
+
+    @Override
+    public void clear(Long userId) {
+        stringRedisTemplate.execute(CLEAR_SCRIPT, keys(userId), String.valueOf(userId), String.valueOf(ttl.toMillis()));
+    }
+
+    @Override
+    public void addAll(List<ShoppingCart> items) {
+        for (ShoppingCart item : items) {
+            apply(item.getUserId(), field(item), item.getNumber(), item);
+        }
+    }
+
+    @Override
+    public void applyBatch(Long userId, List<ShoppingCart> deltas, Consumer<ShoppingCart> enricher) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(userId));
+        args.add(String.valueOf(ttl.toMillis()));
+        LocalDateTime now = LocalDateTime.now();
+        for (ShoppingCart delta : deltas) {
+            if (delta.getNumber() == 0) {
+                continue;
+            }
+            String meta = "";
+            if (delta.getNumber() > 0) {
+                //加购的商品可能还不在购物车中，补全商品信息
+                enricher.accept(delta);
+                delta.setCreateTime(now);
+                meta = toMeta(delta);
+            }
+            args.add(field(delta));
+            args.add(String.valueOf(delta.getNumber()));
+            args.add(meta);
+        }
+        if (args.size() == 2) {
+            return;
+        }
+        //所有变更在一次脚本调用中完成
+        execute(APPLY_BATCH_SCRIPT, userId, args);
+    }
+
+    /**
+     * 把有变更的购物车写回shopping_cart表，每个用户先删除原有的行再整体插入；
+     * 多个节点通过CART_FLUSH_LOCK保证同一时间只有一个节点写回，同一用户的写回不会乱序
+     */
+    @Scheduled(fixedDelayString = "${sky.cart.flush-interval:10000}", initialDelayString = "${sky.cart.flush-interval:10000}")
+    public void flush() {
+        try {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(FLUSH_LOCK_KEY, "1", FLUSH_LOCK_TTL))) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            log.warn("购物车写回获取锁失败：{}", e.getMessage());
+            return;
+        }
+        long deadline = System.currentTimeMillis() + FLUSH_LOCK_TTL.toMillis() / 2;
+        int count = 0;
+        try {
+            //在锁过期之前结束，剩余的用户留到下一次
+            while (System.currentTimeMillis() < deadline) {
+                List<String> userIds = stringRedisTemplate.opsForSet().pop(DIRTY_KEY, FLUSH_BATCH);
+                if (userIds == null || userIds.isEmpty()) {
+                    break;
+                }
+                for (String userId : userIds) {
+                    flush(Long.valueOf(userId));
+                }
+                count += userIds.size();
+            }
+        } catch (RuntimeException e) {
+            log.warn("购物车写回失败：{}", e.getMessage());
+        } finally {
+            stringRedisTemplate.delete(FLUSH_LOCK_KEY);
+        }
+        if (count > 0) {
+            log.info("购物车写回完成，用户数：{}", count);
+        }
+    }
+
+    /**
+     * 写回一个用户的购物车，失败时重新记入待写回集合
+     * @param userId
+     */
+    private void flush(Long userId) {
+        try {
+            Map<Object, Object> quantities = stringRedisTemplate.opsForHash().entries(QUANTITY_KEY_PREFIX + userId);
+            if (!quantities.containsKey(LOADED)) {
+                //Redis中的购物车已过期或丢失，shopping_cart表中的数据保持不变
+                return;
+            }
+            List<ShoppingCart> items = toItems(userId, quantities);
+            transactionTemplate.executeWithoutResult(status -> {
+                shoppingCartMapper.deleteByUserId(userId);
+                if (!items.isEmpty()) {
+                    shoppingCartMapper.insertBatch(items);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("购物车写回失败，userId：{}，{}", userId, e.getMessage());
+            stringRedisTemplate.opsForSet().add(DIRTY_KEY, String.valueOf(userId));
+        }
+    }
+
+    /**
+     * 从shopping_cart表加载用户的购物车
+     * @param userId
+     */
+    private void load(Long userId) {
+        List<ShoppingCart> rows = shoppingCartMapper.list(ShoppingCart.builder()
+                .userId(userId)
+                .build());
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(ttl.toMillis()));
+        for (ShoppingCart row : rows) {
+            args.add(field(row));
+            args.add(String.valueOf(row.getNumber()));
+            args.add(toMeta(row));
+        }
+        stringRedisTemplate.execute(LOAD_SCRIPT, keys(userId), args.toArray());
+    }
+
+    /**
+     * 执行数量变更脚本
+     * @param userId
+     * @param field
+     * @param delta
+     * @param item 不为null时，商品不在购物车中则一并写入商品信息
+     * @return 变更后的数量，商品不在购物车中且item为null时返回-1
+     */
+    private Long apply(Long userId, String field, int delta, ShoppingCart item) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(userId));
+        args.add(field);
+        args.add(String.valueOf(delta));
+        args.add(String.valueOf(ttl.toMillis()));
+        if (item != null) {
+            args.add(toMeta(item));
+        }
+        return execute(APPLY_SCRIPT, userId, args);
+    }
+
+    /**
+     * 执行变更脚本，Redis中的购物车未加载时先从shopping_cart表加载，再执行一次
+     * @param script
+     * @param userId
+     * @param args
+     * @return
+     */
+    private Long execute(DefaultRedisScript<Long> script, Long userId, List<String> args) {
+        Long result = stringRedisTemplate.execute(script, keys(userId), args.toArray());
+        if (result != null && result == NOT_LOADED) {
+            load(userId);
+            result = stringRedisTemplate.execute(script, keys(userId), args.toArray());
+        }
+        return result;
+    }
+
+    /**
+     * 数量hash中的商品转为购物车数据，按加入购物车的时间排序
+     * @param userId
+     * @param quantities
+     * @return
+     */
+    private List<ShoppingCart> toItems(Long userId, Map<Object, Object> quantities) {
+        List<Object> fields = new ArrayList<>(quantities.keySet());
+        fields.remove(LOADED);
+        if (fields.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Object> items = stringRedisTemplate.opsForHash().multiGet(ITEM_KEY_PREFIX + userId, fields);
+
+        List<ShoppingCart> list = new ArrayList<>();
+        for (int i = 0; i < fields.size(); i++) {
+            Object json = items.get(i);
+            if (json == null) {
+                log.warn("购物车商品信息缺失，userId：{}，商品：{}", userId, fields.get(i));
+                continue;
+            }
+            ShoppingCart shoppingCart = JSON.parseObject((String) json, ShoppingCart.class);
+            shoppingCart.setUserId(userId);
+            shoppingCart.setNumber(Integer.valueOf((String) quantities.get(fields.get(i))));
+            list.add(shoppingCart);
+        }
+        list.sort(Comparator.comparing(ShoppingCart::getCreateTime, Comparator.nullsLast(Comparator.naturalOrder())));
+        return list;
+    }
+
+    private static List<String> keys(Long userId) {
+        return Arrays.asList(QUANTITY_KEY_PREFIX + userId, ITEM_KEY_PREFIX + userId, DIRTY_KEY);
+    }
+
+    /**
+     * 商品信息json，数量和用户id由数量hash、key维护，不重复保存
+     * @param item
+     * @return
+     */
+    private static String toMeta(ShoppingCart item) {
+        ShoppingCart meta = ShoppingCart.builder()
+                .name(item.getName())
+                .dishId(item.getDishId())
+                .setmealId(item.getSetmealId())
+                .dishFlavor(item.getDishFlavor())
+                .amount(item.getAmount())
+                .image(item.getImage())
+                .createTime(item.getCreateTime())
+                .build();
+        return JSON.toJSONString(meta);
+    }
+
+    /**
+     * 购物车中商品的field：菜品为 dish:{dishId}:{口味}，套餐为 setmeal:{setmealId}
+     * @param item
+     * @return
+     */
+    static String field(ShoppingCart item) {
+        if (item.getDishId() != null) {
+            return "dish:" + item.getDishId() + ":" + (item.getDishFlavor() == null ? "" : item.getDishFlavor());
+        }
+        return "setmeal:" + item.getSetmealId();
+    }
+}
@@ -0,0 +1,58 @@
+package com.sky.catalog;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 菜品、套餐、分类数据变更事件，由管理端的service在修改数据后发布
+ * 同时携带受影响的缓存key：菜品缓存、套餐缓存都按分类id缓存
+ */
+@Getter
+public class CatalogChangeEvent {
+
+    public enum Type {
+        DISH, SETMEAL, CATEGORY
+    }
+
+    private final Type type;
+
+    //变更的菜品/套餐/分类id
+    private final List<Long> ids;
+
+    //需要失效的菜品缓存（dishCache）的分类id
+    private final Set<Long> dishCategoryIds;
+
+    //需要失效的套餐缓存（setmealCache）的分类id
+    private final Set<Long> setmealCategoryIds;
+
+    public CatalogChangeEvent(Type type, Collection<Long> ids,
+                              Collection<Long> dishCategoryIds, Collection<Long> setmealCategoryIds) {
+        this.type = type;
+        this.ids = copyOf(ids);
+        this.dishCategoryIds = Set.copyOf(copyOf(dishCategoryIds));
+        this.setmealCategoryIds = Set.copyOf(copyOf(setmealCategoryIds));
+    }
+
+    /**
+     * 不影响菜品、套餐缓存的变更
+     * @param type
+     * @param id
+     * @return
+     */
+    public static CatalogChangeEvent of(Type type, Long id) {
+        return new CatalogChangeEvent(type, id == null ? null : List.of(id), null, null);
+    }
+
+    private static List<Long> copyOf(Collection<Long> ids) {
+        return ids == null ? List.of() : ids.stream().filter(id -> id != null).toList();
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogChangeEvent{type=" + type + ", ids=" + ids + ", dishCategoryIds=" + dishCategoryIds
+                + ", setmealCategoryIds=" + setmealCategoryIds + "}";
+    }
+}
@@ -0,0 +1,149 @@
+package com.sky.catalog;
+
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.mapper.CategoryMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 持有当前的目录快照
+ * 读路径只读取volatile引用；菜品、套餐、分类变更的事务提交后整体重建快照并原子替换，
+ * 读者看到的要么是旧快照，要么是完整的新快照；其他节点的变更由CatalogVersion通知后重建
+ */
+@Component
+@Slf4j
+public class CatalogHolder {
+
+    @Autowired
+    private DishMapper dishMapper;
+    @Autowired
+    private SetmealMapper setmealMapper;
+    @Autowired
+    private CategoryMapper categoryMapper;
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    private volatile CatalogSnapshot snapshot;
+
+    //变更版本号，重建期间又有变更时需要再次重建
+    private final AtomicLong version = new AtomicLong();
+
+    //当前快照对应的变更版本号，只在rebuild的锁内读写
+    private long builtVersion = -1;
+
+    /**
+     * 当前快照，首次访问时构建
+     * @return
+     */
+    public CatalogSnapshot get() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            current = rebuild();
+        }
+        return current;
+    }
+
+    /**
+     * 分类是否存在：快照中没有时检查目录版本，其他节点刚新增、本节点还未收到版本通知的分类在重新加载后可见；
+     * 不按id查询数据库，不存在的id不会访问数据库和缓存
+     * @param id
+     * @return
+     */
+    public boolean containsCategory(Long id) {
+        return get().containsCategory(id) || (catalogVersion.refreshIfStale() && get().containsCategory(id));
+    }
+
+    /**
+     * 套餐是否存在：快照中没有时检查目录版本
+     * @param id
+     * @return
+     */
+    public boolean containsSetmeal(Long id) {
+        return get().getSetmeal(id) != null || (catalogVersion.refreshIfStale() && get().getSetmeal(id) != null);
+    }
+
+    /**
+     * 查询在售的菜品或套餐：快照中没有时检查目录版本
+     * @param dishId
+     * @param setmealId
+     * @return 不存在或已停售时返回null
+     */
+    public CatalogItem getOnSale(Long dishId, Long setmealId) {
+        CatalogItem item = get().getOnSale(dishId, setmealId);
+        if (item == null && catalogVersion.refreshIfStale()) {
+            item = get().getOnSale(dishId, setmealId);
+        }
+        return item;
+    }
+
+    /**
+     * 目录数据变更，事务提交后重建快照；非事务中发布的事件立即处理
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        log.info("目录数据变更，重建快照：{}", event);
+        version.incrementAndGet();
+        rebuild();
+    }
+
+    /**
+     * 其他节点修改了目录，重建快照
+     * @param event
+     */
+    @EventListener
+    public void onCatalogRefresh(CatalogRefreshEvent event) {
+        version.incrementAndGet();
+        rebuild();
+    }
+
+    /**
+     * 从数据库加载全部菜品、套餐、分类id并替换快照
+     * @return
+     */
+    public synchronized CatalogSnapshot rebuild() {
+        long expected = version.get();
+        //已有快照且期间没有新的变更（其他线程刚重建过），无需重复加载
+        if (snapshot != null && expected == builtVersion) {
+            return snapshot;
+        }
+        long start = System.currentTimeMillis();
+        List<Dish> dishList = dishMapper.list(new Dish());
+        List<Setmeal> setmealList = setmealMapper.list(new Setmeal());
+        List<Category> categoryList = categoryMapper.list(null);
+
+        Map<Long, CatalogItem> dishes = new HashMap<>();
+        for (Dish dish : dishList) {
+            dishes.put(dish.getId(), new CatalogItem(dish.getId(), dish.getName(), dish.getImage(),
+                    dish.getPrice(), dish.getStatus(), dish.getCategoryId()));
+        }
+        Map<Long, CatalogItem> setmeals = new HashMap<>();
+        for (Setmeal setmeal : setmealList) {
+            setmeals.put(setmeal.getId(), new CatalogItem(setmeal.getId(), setmeal.getName(), setmeal.getImage(),
+                    setmeal.getPrice(), setmeal.getStatus(), setmeal.getCategoryId()));
+        }
+        Set<Long> categoryIds = new HashSet<>();
+        for (Category category : categoryList) {
+            categoryIds.add(category.getId());
+        }
+        snapshot = new CatalogSnapshot(dishes, setmeals, categoryIds);
+        builtVersion = expected;
+        log.info("目录快照构建完成，菜品：{}，套餐：{}，分类：{}，耗时：{}ms",
+                dishes.size(), setmeals.size(), categoryIds.size(), System.currentTimeMillis() - start);
+        return snapshot;
+    }
+}
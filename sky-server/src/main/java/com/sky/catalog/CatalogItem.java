@@ -0,0 +1,27 @@
+package com.sky.catalog;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * 目录快照中的一个菜品或套餐，不可变
+ */
+@Getter
+@AllArgsConstructor
+public final class CatalogItem {
+
+    private final Long id;
+
+    private final String name;
+
+    private final String image;
+
+    private final BigDecimal price;
+
+    //0 停售 1 起售
+    private final Integer status;
+
+    private final Long categoryId;
+}
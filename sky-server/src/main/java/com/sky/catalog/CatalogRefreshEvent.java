@@ -0,0 +1,24 @@
+package com.sky.catalog;
+
+/**
+ * 其他节点修改了菜品、套餐或分类，本节点需要重新加载目录快照、菜单快照
+ * 由CatalogVersion在收到版本变更通知或定时检查发现版本落后时发布
+ */
+public class CatalogRefreshEvent {
+
+    //发现的目录版本号
+    private final long version;
+
+    public CatalogRefreshEvent(long version) {
+        this.version = version;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogRefreshEvent{version=" + version + "}";
+    }
+}
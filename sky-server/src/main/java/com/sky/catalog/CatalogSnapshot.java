@@ -0,0 +1,81 @@
+package com.sky.catalog;
+
+import com.sky.constant.StatusConstant;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 菜品、套餐目录快照，构建后不再修改，可被任意线程无锁读取
+ * 同时保存全部分类id，用户端查询前据此拦截不存在的id，避免请求穿透到缓存和数据库
+ */
+public final class CatalogSnapshot {
+
+    private final Map<Long, CatalogItem> dishes;
+
+    private final Map<Long, CatalogItem> setmeals;
+
+    private final Set<Long> categoryIds;
+
+    private final long builtAt;
+
+    public CatalogSnapshot(Map<Long, CatalogItem> dishes, Map<Long, CatalogItem> setmeals, Set<Long> categoryIds) {
+        this.dishes = Map.copyOf(dishes);
+        this.setmeals = Map.copyOf(setmeals);
+        this.categoryIds = Set.copyOf(categoryIds);
+        this.builtAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 根据id查询菜品
+     * @param id
+     * @return 不存在时返回null
+     */
+    public CatalogItem getDish(Long id) {
+        return id == null ? null : dishes.get(id);
+    }
+
+    /**
+     * 根据id查询套餐
+     * @param id
+     * @return 不存在时返回null
+     */
+    public CatalogItem getSetmeal(Long id) {
+        return id == null ? null : setmeals.get(id);
+    }
+
+    /**
+     * 查询菜品或套餐，dishId不为空时查菜品
+     * @param dishId
+     * @param setmealId
+     * @return 不存在或已停售时返回null
+     */
+    public CatalogItem getOnSale(Long dishId, Long setmealId) {
+        CatalogItem item = dishId != null ? getDish(dishId) : getSetmeal(setmealId);
+        if (item == null || !StatusConstant.ENABLE.equals(item.getStatus())) {
+            return null;
+        }
+        return item;
+    }
+
+    /**
+     * 分类是否存在（不区分启用、禁用）
+     * @param id
+     * @return
+     */
+    public boolean containsCategory(Long id) {
+        return id != null && categoryIds.contains(id);
+    }
+
+    public int getDishCount() {
+        return dishes.size();
+    }
+
+    public int getSetmealCount() {
+        return setmeals.size();
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+}
@@ -0,0 +1,154 @@
+package com.sky.catalog;
+
+import com.sky.cache.CatalogCacheInvalidator;
+import com.sky.cache.TwoLevelCacheManager;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 多节点间同步目录版本
+ * 目录版本号保存在Redis的CATALOG_VERSION中，本节点修改菜品、套餐、分类的事务提交后加一，并通过频道通知其他节点；
+ * 收到比本节点已知版本更新的版本时发布CatalogRefreshEvent，由目录快照、菜单快照重新加载。
+ * 通知可能丢失，定时检查Redis中的版本号兜底
+ */
+@Component
+@Slf4j
+public class CatalogVersion implements MessageListener {
+
+    public static final String KEY = "CATALOG_VERSION";
+
+    //目录版本变更通知的频道
+    public static final String CHANNEL = "sky:catalog:version";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private TwoLevelCacheManager cacheManager;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    //快照未命中时检查版本号的最小间隔（毫秒），大量不存在的id只会触发有限次数的Redis读取
+    private static final long MISS_CHECK_INTERVAL = 1000;
+
+    //本节点已经处理过的最新版本
+    private final AtomicLong seen = new AtomicLong();
+
+    //上一次因快照未命中检查版本号的时间
+    private final AtomicLong lastMissCheck = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        //启动时快照按需从数据库构建，记下当前版本即可
+        Long latest = read();
+        if (latest != null) {
+            seen.accumulateAndGet(latest, Math::max);
+        }
+    }
+
+    /**
+     * 本节点的目录变更提交后递增版本号并通知其他节点；
+     * 在缓存失效之后、本节点快照重建之前执行，递增前已提交的其他节点的变更也会被本节点的重建读到
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        long version;
+        try {
+            version = stringRedisTemplate.opsForValue().increment(KEY);
+            stringRedisTemplate.convertAndSend(CHANNEL, String.valueOf(version));
+        } catch (RuntimeException e) {
+            //其他节点的快照保持旧数据，直到下一次成功递增版本号
+            log.warn("发送目录版本变更通知失败：{}，{}", event, e.getMessage());
+            return;
+        }
+        long previous = seen.getAndAccumulate(version, Math::max);
+        if (version > previous + 1) {
+            //期间有其他节点的变更还没有收到通知
+            refresh(version);
+        }
+    }
+
+    /**
+     * 定时检查Redis中的版本号，补上丢失的通知
+     */
+    @Scheduled(fixedRate = 30000, initialDelay = 30000)
+    public void check() {
+        Long latest = read();
+        if (latest != null) {
+            advance(latest);
+        }
+    }
+
+    /**
+     * 快照中没有要查找的数据时调用：距上一次检查超过间隔时读取Redis中的版本号，本节点落后时同步重新加载
+     * @return 是否重新加载了目录
+     */
+    public boolean refreshIfStale() {
+        long now = System.currentTimeMillis();
+        long last = lastMissCheck.get();
+        if (now - last < MISS_CHECK_INTERVAL || !lastMissCheck.compareAndSet(last, now)) {
+            return false;
+        }
+        Long latest = read();
+        return latest != null && advance(latest);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            advance(Long.parseLong(body));
+        } catch (NumberFormatException e) {
+            log.warn("无法解析目录版本变更通知：{}", body);
+        }
+    }
+
+    /**
+     * 版本比已处理的版本新时重新加载目录
+     * @param version
+     * @return 是否重新加载了目录
+     */
+    private boolean advance(long version) {
+        //自己发出的通知，或已处理过更新的版本
+        if (seen.getAndAccumulate(version, Math::max) < version) {
+            refresh(version);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 丢弃本节点目录相关的MyBatis本地缓存（其他节点的失效通知可能晚于本通知到达），再通知快照重新加载
+     * @param version
+     */
+    private void refresh(long version) {
+        log.info("目录版本已更新为：{}，重新加载目录", version);
+        cacheManager.evictLocal(CatalogCacheInvalidator.DISH_MAPPER_CACHE);
+        cacheManager.evictLocal(CatalogCacheInvalidator.CATEGORY_MAPPER_CACHE);
+        eventPublisher.publishEvent(new CatalogRefreshEvent(version));
+    }
+
+    private Long read() {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(KEY);
+            return value == null ? null : Long.valueOf(value);
+        } catch (RuntimeException e) {
+            log.warn("读取目录版本失败：{}", e.getMessage());
+            return null;
+        }
+    }
+}
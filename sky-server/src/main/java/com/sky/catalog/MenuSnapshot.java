@@ -0,0 +1,27 @@
+package com.sky.catalog;
+
+import com.sky.vo.MenuSnapshotVO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 序列化好的完整菜单，构建后不再修改
+ */
+@Getter
+@AllArgsConstructor
+public final class MenuSnapshot {
+
+    //目录版本号，每次目录变更加一
+    private final long version;
+
+    //强校验ETag，由内容摘要生成，内容不变时保持不变
+    private final String etag;
+
+    //Result包装后的json
+    private final byte[] json;
+
+    //json的gzip压缩结果
+    private final byte[] gzip;
+
+    private final MenuSnapshotVO menu;
+}
@@ -0,0 +1,148 @@
+package com.sky.config;
+
+import com.sky.utils.SnowflakeIdGenerator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * 配置类，用于创建订单号生成器
+ * 机器id优先取配置项 sky.order.worker-id，未配置时从Redis中租用一个未被占用的机器id，并定时续租
+ */
+@Configuration
+@Slf4j
+public class IdGeneratorConfiguration {
+
+    private static final String WORKER_ID_KEY_PREFIX = "ORDER_WORKER_ID:";
+
+    //租约时长，续租间隔为其三分之一
+    private static final Duration LEASE_TTL = Duration.ofSeconds(60);
+
+    //仍持有租约时才续期
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end", Long.class);
+
+    //仍持有租约时才释放
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${sky.order.worker-id:-1}")
+    private long configuredWorkerId;
+
+    //当前实例的租约标识，为null表示未使用Redis租约
+    private String leaseOwner;
+    private volatile String leaseKey;
+    private volatile long leaseWorkerId;
+
+    //最后一次确认持有租约的时间加上租约时长，超过后租约可能已被其他实例占用
+    private volatile long leaseValidUntil;
+
+    private SnowflakeIdGenerator generator;
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator() {
+        if (configuredWorkerId >= 0) {
+            log.info("使用配置的订单号机器id：{}", configuredWorkerId);
+            return new SnowflakeIdGenerator(configuredWorkerId);
+        }
+        leaseOwner = UUID.randomUUID().toString();
+        long workerId = acquireWorkerId();
+        if (workerId < 0) {
+            throw new IllegalStateException("没有可用的订单号机器id");
+        }
+        log.info("从Redis租用订单号机器id：{}", workerId);
+        generator = new SnowflakeIdGenerator(workerId);
+        return generator;
+    }
+
+    /**
+     * 定时续租机器id
+     * 租约已被其他实例占用时暂停生成id，并重新租用一个空闲的机器id；
+     * Redis不可用导致租约可能过期时同样暂停，直到重新确认持有租约
+     */
+    @Scheduled(fixedRate = 20000, initialDelay = 20000)
+    public void renewWorkerIdLease() {
+        if (leaseOwner == null) {
+            return;
+        }
+        try {
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(leaseKey),
+                    leaseOwner, String.valueOf(LEASE_TTL.toMillis()));
+            if (renewed != null && renewed == 1) {
+                leaseValidUntil = System.currentTimeMillis() + LEASE_TTL.toMillis();
+                if (generator.isSuspended()) {
+                    //Redis恢复后确认仍持有原来的租约
+                    generator.resume(leaseWorkerId);
+                    log.warn("仍持有订单号机器id租约，恢复生成订单号：{}", leaseKey);
+                }
+                return;
+            }
+            if (!generator.isSuspended()) {
+                generator.suspend();
+                log.error("订单号机器id租约已失效，暂停生成订单号：{}", leaseKey);
+            }
+            long workerId = acquireWorkerId();
+            if (workerId < 0) {
+                log.error("没有可用的订单号机器id，暂停生成订单号");
+                return;
+            }
+            generator.resume(workerId);
+            log.warn("重新租用订单号机器id：{}，恢复生成订单号", workerId);
+        } catch (Exception e) {
+            log.warn("续租订单号机器id失败：{}", e.getMessage());
+            //下一次续租前租约就会过期时提前暂停
+            if (!generator.isSuspended() && System.currentTimeMillis() + LEASE_TTL.toMillis() / 3 >= leaseValidUntil) {
+                generator.suspend();
+                log.error("订单号机器id租约可能已过期，暂停生成订单号：{}", leaseKey);
+            }
+        }
+    }
+
+    /**
+     * 依次尝试占用空闲的机器id
+     * @return 租到的机器id，没有空闲的机器id时为-1
+     */
+    private long acquireWorkerId() {
+        for (long workerId = 0; workerId <= SnowflakeIdGenerator.MAX_WORKER_ID; workerId++) {
+            String key = WORKER_ID_KEY_PREFIX + workerId;
+            Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(key, leaseOwner, LEASE_TTL);
+            if (Boolean.TRUE.equals(acquired)) {
+                leaseKey = key;
+                leaseWorkerId = workerId;
+                leaseValidUntil = System.currentTimeMillis() + LEASE_TTL.toMillis();
+                return workerId;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 实例关闭时释放机器id
+     */
+    @PreDestroy
+    public void releaseWorkerIdLease() {
+        if (leaseOwner == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(leaseKey), leaseOwner);
+        } catch (Exception e) {
+            log.warn("释放订单号机器id失败：{}", e.getMessage());
+        }
+    }
+}
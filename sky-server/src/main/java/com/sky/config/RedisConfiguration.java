@@ -1,17 +1,19 @@
 package com.sky.config;
 
+import com.sky.cache.MybatisRedisCache;
+import com.sky.cache.TwoLevelCacheManager;
+import com.sky.catalog.CatalogVersion;
+import com.sky.properties.CacheProperties;
+import com.sky.shop.ShopStatusCache;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.redis.cache.RedisCacheConfiguration;
-import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
-import java.time.Duration;
-
 @Configuration
 @Slf4j
 public class RedisConfiguration {
@@ -27,14 +29,33 @@ public class RedisConfiguration {
         return redisTemplate;
     }
 
+    /**
+     * 两级缓存：本地Caffeine + Redis，过期时间等见 sky.cache 配置
+     */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
-        RedisCacheConfiguration cacheConfiguration = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofHours(1)) // 设置缓存过期时间为1小时
-                .disableCachingNullValues(); // 不缓存空值
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory, CacheProperties cacheProperties) {
+        log.info("开始创建两级缓存管理器...");
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(redisConnectionFactory, cacheProperties);
+        //MyBatis二级缓存同样使用两级缓存
+        MybatisRedisCache.setCacheManager(cacheManager);
+        return cacheManager;
+    }
 
-        return RedisCacheManager.builder(redisConnectionFactory)
-                .cacheDefaults(cacheConfiguration)
-                .build();
+    /**
+     * 订阅缓存失效频道，其他节点修改缓存后丢弃本地缓存；订阅店铺营业状态频道，更新本地状态；
+     * 订阅目录版本频道，其他节点修改目录后重新加载快照
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                       TwoLevelCacheManager cacheManager,
+                                                                       CacheProperties cacheProperties,
+                                                                       ShopStatusCache shopStatusCache,
+                                                                       CatalogVersion catalogVersion) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(cacheProperties.getInvalidationChannel()));
+        container.addMessageListener(shopStatusCache, new ChannelTopic(ShopStatusCache.CHANNEL));
+        container.addMessageListener(catalogVersion, new ChannelTopic(CatalogVersion.CHANNEL));
+        return container;
     }
 }
\ No newline at end of file
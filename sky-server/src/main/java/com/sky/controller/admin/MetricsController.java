@@ -0,0 +1,84 @@
+package com.sky.controller.admin;
+
+import com.sky.cache.TwoLevelCacheManager;
+import com.sky.geo.DeliveryZone;
+import com.sky.geo.GeoCache;
+import com.sky.metrics.LatencyMetrics;
+import com.sky.result.Result;
+import com.sky.utils.HttpClientUtil;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/metrics")
+@Tag(name = "管理端-运行指标接口")
+@Slf4j
+public class MetricsController {
+
+    @Autowired
+    private TwoLevelCacheManager cacheManager;
+    @Autowired
+    private LatencyMetrics latencyMetrics;
+    @Autowired
+    private GeoCache geoCache;
+    @Autowired
+    private DeliveryZone deliveryZone;
+
+    /**
+     * 各缓存的命中、未命中、回源耗时、本地淘汰和值大小统计
+     * @return
+     */
+    @GetMapping("/cache")
+    @Operation(summary = "查询缓存统计")
+    public Result<Map<String, Map<String, Object>>> cache() {
+        return Result.success(cacheManager.statistics());
+    }
+
+    /**
+     * 各业务阶段（如下单的校验、写库）的耗时分布
+     * @return
+     */
+    @GetMapping("/latency")
+    @Operation(summary = "查询业务阶段耗时")
+    public Result<Map<String, Map<String, Object>>> latency() {
+        return Result.success(latencyMetrics.snapshot());
+    }
+
+    /**
+     * 地址坐标、驾车距离缓存的命中、未命中次数和条目数
+     * @return
+     */
+    @GetMapping("/geo")
+    @Operation(summary = "查询地理编码缓存统计")
+    public Result<Map<String, Long>> geo() {
+        return Result.success(geoCache.getStats());
+    }
+
+    /**
+     * 配送范围本地判断结果：范围内、范围外、需要路线规划的次数
+     * 只统计下单时的配送范围校验（OrderServiceImpl.checkOutOfRange），保存收货地址时不做判断
+     * @return
+     */
+    @GetMapping("/delivery-zone")
+    @Operation(summary = "查询配送范围判断统计")
+    public Result<Map<String, Long>> deliveryZone() {
+        return Result.success(deliveryZone.getStats());
+    }
+
+    /**
+     * HTTP连接池使用情况：已借出、等待中、空闲和最大连接数
+     * @return
+     */
+    @GetMapping("/http-pool")
+    @Operation(summary = "查询HTTP连接池使用情况")
+    public Result<Map<String, Integer>> httpPool() {
+        return Result.success(HttpClientUtil.getPoolStats());
+    }
+}
@@ -4,6 +4,7 @@ import com.sky.dto.OrdersCancelDTO;
 import com.sky.dto.OrdersConfirmDTO;
 import com.sky.dto.OrdersPageQueryDTO;
 import com.sky.dto.OrdersRejectionDTO;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
 import com.sky.service.OrderService;
@@ -37,6 +38,18 @@ public class OrderController {
         return Result.success(pageResult);
     }
 
+    /**
+     * 订单搜索（游标分页），不返回总数
+     * @param ordersPageQueryDTO cursorTime、cursorId为上一页返回的nextCursorTime、nextCursorId，为空时查询第一页
+     * @return
+     */
+    @GetMapping("/conditionSearch/cursor")
+    @Operation(summary = "订单搜索（游标分页）")
+    public Result<CursorPageResult> conditionSearchByCursor(OrdersPageQueryDTO ordersPageQueryDTO){
+        log.info("订单搜索（游标分页）：{}", ordersPageQueryDTO);
+        return Result.success(orderService.conditionSearchByCursor(ordersPageQueryDTO));
+    }
+
     /**
      * 各个状态的订单数量统计
      *
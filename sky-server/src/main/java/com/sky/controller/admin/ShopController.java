@@ -1,11 +1,11 @@
 package com.sky.controller.admin;
 
 import com.sky.result.Result;
+import com.sky.shop.ShopStatusCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.*;
 
 @RestController("adminShopController")
@@ -14,10 +14,8 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 public class ShopController {
 
-    public static final String KEY="SHOP_STATUS";
-
     @Autowired
-    private RedisTemplate redisTemplate;
+    private ShopStatusCache shopStatusCache;
 
     /**
      * 设置店铺的营业状态
@@ -28,11 +26,8 @@ public class ShopController {
     @Operation(summary = "设置店铺的营业状态")
     public Result setStatus(@PathVariable Integer status){
         log.info("设置店铺的营业状态为：{}",status==1?"营业中":"打烊中");
-        redisTemplate.opsForValue().set(KEY,status);
-        
-        // 添加返回信息确认状态已设置
-        Integer currentStatus = (Integer) redisTemplate.opsForValue().get(KEY);
-        log.info("确认店铺状态已设置为：{}", currentStatus == 1 ? "营业中" : "打烊中");
+        //写入Redis并通知所有节点更新本地状态
+        shopStatusCache.setStatus(status);
         return Result.success();
     }
 
@@ -43,8 +38,8 @@ public class ShopController {
     @GetMapping("/status")
     @Operation(summary = "获取店铺的营业状态")
     public Result<Integer> getStatus(){
-        Integer status = (Integer) redisTemplate.opsForValue().get(KEY);
+        Integer status = shopStatusCache.getStatus();
         log.info("获取到店铺的营业状态为：{}",status==1?"营业中":"打烊中");
         return Result.success(status);
     }
-}
\ No newline at end of file
+}
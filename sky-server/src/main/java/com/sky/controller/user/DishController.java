@@ -1,15 +1,20 @@
 package com.sky.controller.user;
 
+import com.sky.cache.CatalogCacheInvalidator;
+import com.sky.cache.CatalogResponseCache;
+import com.sky.catalog.CatalogHolder;
 import com.sky.constant.StatusConstant;
 import com.sky.entity.Dish;
-import com.sky.result.Result;
 import com.sky.service.DishService;
 import com.sky.vo.DishVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -22,22 +27,35 @@ import java.util.List;
 public class DishController {
     @Autowired
     private DishService dishService;
+    @Autowired
+    private CatalogHolder catalogHolder;
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
 
     /**
      * 根据分类id查询菜品
-     *
+     * 直接返回已序列化的响应字节，缓存未变化时不再执行json序列化
      * @param categoryId
-     * @return
+     * @param ifNoneMatch
+     * @param acceptEncoding
+     * @return Result包装的List<DishVO>
      */
     @GetMapping("/list")
     @Operation(summary = "根据分类id查询菜品")
-    public Result<List<DishVO>> list(Long categoryId) {
+    public ResponseEntity<byte[]> list(Long categoryId,
+                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         log.info("根据分类id查询菜品，{}",categoryId);
+        //不存在的分类直接返回空列表，不查询缓存；未指定分类时与原来一样查询全部
+        if (categoryId != null && !catalogHolder.containsCategory(categoryId)) {
+            return catalogResponseCache.emptyList().toResponseEntity(ifNoneMatch, acceptEncoding);
+        }
         Dish dish = Dish.builder()
                 .categoryId(categoryId)
                 .status(StatusConstant.ENABLE)
                 .build();
         List<DishVO> list = dishService.listWithFlavor(dish);
-        return Result.success(list);
+        return catalogResponseCache.get(CatalogCacheInvalidator.DISH_CACHE, categoryId, list)
+                .toResponseEntity(ifNoneMatch, acceptEncoding);
     }
-}
\ No newline at end of file
+}
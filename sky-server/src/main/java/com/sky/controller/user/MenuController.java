@@ -0,0 +1,41 @@
+package com.sky.controller.user;
+
+import com.sky.cache.SerializedResponse;
+import com.sky.catalog.MenuSnapshot;
+import com.sky.service.MenuService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/user/menu")
+@Slf4j
+@Tag(name = "用户端-菜单接口")
+public class MenuController {
+
+    @Autowired
+    private MenuService menuService;
+
+    /**
+     * 查询完整菜单：所有启用的分类、在售菜品（含口味）和套餐
+     * 客户端携带If-None-Match且菜单未变化时返回304
+     * @param ifNoneMatch
+     * @param acceptEncoding
+     * @return Result包装的MenuSnapshotVO
+     */
+    @GetMapping("/snapshot")
+    @Operation(summary = "查询完整菜单")
+    public ResponseEntity<byte[]> snapshot(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        MenuSnapshot snapshot = menuService.getSnapshot();
+        return SerializedResponse.toResponseEntity(snapshot.getEtag(), snapshot.getJson(), snapshot.getGzip(),
+                ifNoneMatch, acceptEncoding);
+    }
+}
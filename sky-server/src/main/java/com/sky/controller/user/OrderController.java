@@ -3,6 +3,7 @@ package com.sky.controller.user;
 import com.sky.dto.OrdersPageQueryDTO;
 import com.sky.dto.OrdersPaymentDTO;
 import com.sky.dto.OrdersSubmitDTO;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
 import com.sky.service.OrderService;
@@ -67,6 +68,18 @@ public class OrderController {
         return Result.success(pageResult);
     }
 
+    /**
+     * 查询历史订单（游标分页），不返回总数
+     * @param ordersPageQueryDTO cursorTime、cursorId为上一页返回的nextCursorTime、nextCursorId，为空时查询第一页
+     * @return
+     */
+    @GetMapping("/historyOrders/cursor")
+    @Operation(summary = "查询历史订单接口（游标分页）")
+    public Result<CursorPageResult> historyOrdersByCursor(OrdersPageQueryDTO ordersPageQueryDTO){
+        log.info("查询历史订单（游标分页），前端请求信息为：{}",ordersPageQueryDTO);
+        return Result.success(orderService.cursorQuery4User(ordersPageQueryDTO));
+    }
+
     /**
      * 查询订单详情
      *
@@ -1,5 +1,8 @@
 package com.sky.controller.user;
 
+import com.sky.cache.CatalogCacheInvalidator;
+import com.sky.cache.CatalogResponseCache;
+import com.sky.catalog.CatalogHolder;
 import com.sky.constant.StatusConstant;
 import com.sky.entity.Setmeal;
 import com.sky.result.Result;
@@ -8,11 +11,15 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import com.sky.service.SetmealService;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController("userSetmealController")
@@ -22,21 +29,36 @@ import java.util.List;
 public class SetmealController {
     @Autowired
     private SetmealService setmealService;
+    @Autowired
+    private CatalogHolder catalogHolder;
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
 
     /**
      * 根据分类id查询套餐
+     * 直接返回已序列化的响应字节，缓存未变化时不再执行json序列化
      * @param categoryId
-     * @return
+     * @param ifNoneMatch
+     * @param acceptEncoding
+     * @return Result包装的List<Setmeal>
      */
     @GetMapping("/list")
     @Operation(summary = "根据分类id查询套餐")
-    public Result<List<Setmeal>> list(Long categoryId){
+    public ResponseEntity<byte[]> list(Long categoryId,
+                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
         log.info("根据分类id查询套餐，{}",categoryId);
+        //不存在的分类直接返回空列表，不查询缓存；未指定分类时与原来一样查询全部
+        if (categoryId != null && !catalogHolder.containsCategory(categoryId)) {
+            return catalogResponseCache.emptyList().toResponseEntity(ifNoneMatch, acceptEncoding);
+        }
         Setmeal setmeal = Setmeal.builder()
                 .status(StatusConstant.ENABLE)
                 .categoryId(categoryId)
                 .build();
-        return Result.success(setmealService.list(setmeal));
+        List<Setmeal> list = setmealService.list(setmeal);
+        return catalogResponseCache.get(CatalogCacheInvalidator.SETMEAL_CACHE, categoryId, list)
+                .toResponseEntity(ifNoneMatch, acceptEncoding);
     }
 
     /**
@@ -48,6 +70,10 @@ public class SetmealController {
     @Operation(summary = "根据id获取套餐详情，包括套餐和菜品信息")
     public Result<List<DishItemVO>> dishList(@PathVariable("id") Long id){
         log.info("根据id获取套餐详情，{}",id);
+        //不存在的套餐直接返回空列表
+        if (!catalogHolder.containsSetmeal(id)) {
+            return Result.success(new ArrayList<>());
+        }
         List<DishItemVO> list=setmealService.getDishItemById(id);
         return Result.success(list);
     }
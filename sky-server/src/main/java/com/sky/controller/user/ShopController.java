@@ -1,10 +1,10 @@
 package com.sky.controller.user;
 
+import com.sky.shop.ShopStatusCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -16,10 +16,8 @@ import com.sky.result.Result;
 @Tag(name = "用户端-店铺相关接口")
 public class ShopController {
 
-    public static final String KEY = "SHOP_STATUS";
-
     @Autowired
-    private RedisTemplate redisTemplate;
+    private ShopStatusCache shopStatusCache;
 
     /**
      * 获取店铺的营业状态
@@ -28,15 +26,9 @@ public class ShopController {
     @GetMapping("/status")
     @Operation(summary = "获取店铺的营业状态")
     public Result<Integer> getStatus(){
-        Integer status = (Integer) redisTemplate.opsForValue().get(KEY);
+        //读取本地缓存的状态，未设置过时为打烊中
+        Integer status = shopStatusCache.getStatus();
         log.info("获取到店铺的营业状态为：{}",status == 1 ? "营业中" : "打烊中");
-        
-        // 添加额外的日志帮助调试
-        if (status == null) {
-            log.warn("店铺状态未设置，默认返回打烊中");
-            status = 0; // 默认状态为打烊中
-        }
-        
         return Result.success(status);
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package com.sky.controller.user;
 
 import com.sky.dto.ShoppingCartDTO;
+import com.sky.dto.ShoppingCartDeltaDTO;
 import com.sky.entity.ShoppingCart;
 import com.sky.result.Result;
 import com.sky.service.ShoppingCartService;
@@ -57,4 +58,16 @@ public class ShoppingCartController {
         shoppingCartService.subShoppingCart(shoppingCartDTO);
         return Result.success();
     }
+    /**
+     * 批量修改购物车商品数量，一次最多50条
+     * @param deltas
+     * @return
+     */
+    @PostMapping("/batch")
+    @Operation(summary = "批量修改购物车商品数量")
+    public Result batch(@RequestBody List<ShoppingCartDeltaDTO> deltas){
+        log.info("批量修改购物车，商品数：{}", deltas.size());
+        shoppingCartService.batchUpdateShoppingCart(deltas);
+        return Result.success();
+    }
 }
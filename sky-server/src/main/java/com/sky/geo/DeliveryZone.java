@@ -0,0 +1,151 @@
+package com.sky.geo;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地配送范围判断
+ * 驾车距离一定不小于直线距离：
+ * 位于配置的配送多边形内、或直线距离乘以绕路系数仍在半径内的地址直接判定为范围内；直线距离已超过配送半径的地址一定超出范围；
+ * 只有介于两者之间的地址才需要调用路线规划接口
+ */
+@Component
+@Slf4j
+public class DeliveryZone {
+
+    //地球平均半径（米）
+    private static final double EARTH_RADIUS = 6371000;
+
+    /**
+     * 判断结果
+     */
+    public enum Verdict {
+        //一定在配送范围内
+        INSIDE,
+        //一定超出配送范围
+        OUTSIDE,
+        //无法确定，需要路线规划
+        UNCERTAIN
+    }
+
+    //配送半径（米，按驾车距离计算）
+    @Value("${sky.shop.delivery.radius:5000}")
+    private int radius;
+    //绕路系数：直线距离 * 绕路系数 <= 配送半径 时直接判定为范围内
+    @Value("${sky.shop.delivery.detour-factor:1.4}")
+    private double detourFactor;
+    //可选的配送区域多边形，格式：纬度,经度;纬度,经度;...
+    @Value("${sky.shop.delivery.polygon:}")
+    private String polygonConfig;
+
+    private final List<GeoLocation> polygon = new ArrayList<>();
+
+    private final LongAdder inside = new LongAdder();
+    private final LongAdder outside = new LongAdder();
+    private final LongAdder uncertain = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        if (polygonConfig == null || polygonConfig.isBlank()) {
+            return;
+        }
+        for (String point : polygonConfig.split(";")) {
+            String[] latLng = point.trim().split(",");
+            polygon.add(new GeoLocation(Double.parseDouble(latLng[0].trim()), Double.parseDouble(latLng[1].trim())));
+        }
+        if (polygon.size() < 3) {
+            throw new IllegalStateException("配送区域多边形至少需要3个顶点：" + polygonConfig);
+        }
+        log.info("已加载配送区域多边形，顶点数：{}", polygon.size());
+    }
+
+    /**
+     * 判断用户坐标是否在配送范围内
+     * @param shop
+     * @param user
+     * @return
+     */
+    public Verdict evaluate(GeoLocation shop, GeoLocation user) {
+        double straight = distance(shop, user);
+        Verdict verdict;
+        if (!polygon.isEmpty() && contains(user)) {
+            verdict = Verdict.INSIDE;
+        } else if (straight > radius) {
+            verdict = Verdict.OUTSIDE;
+        } else if (straight * detourFactor <= radius) {
+            verdict = Verdict.INSIDE;
+        } else {
+            verdict = Verdict.UNCERTAIN;
+        }
+        log.debug("直线距离: {}米，本地判断结果: {}", Math.round(straight), verdict);
+        switch (verdict) {
+            case INSIDE -> inside.increment();
+            case OUTSIDE -> outside.increment();
+            default -> uncertain.increment();
+        }
+        return verdict;
+    }
+
+    /**
+     * 配送半径（米）
+     * @return
+     */
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * 本地判断结果统计，每次下单校验配送范围时计数一次
+     * @return
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("inside", inside.sum());
+        stats.put("outside", outside.sum());
+        stats.put("uncertain", uncertain.sum());
+        return stats;
+    }
+
+    /**
+     * 计算两点之间的球面距离（米），haversine公式
+     * @param a
+     * @param b
+     * @return
+     */
+    static double distance(GeoLocation a, GeoLocation b) {
+        double lat1 = Math.toRadians(a.getLat());
+        double lat2 = Math.toRadians(b.getLat());
+        double dLat = lat2 - lat1;
+        double dLng = Math.toRadians(b.getLng() - a.getLng());
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    /**
+     * 射线法判断坐标是否位于配送多边形内
+     * @param point
+     * @return
+     */
+    private boolean contains(GeoLocation point) {
+        boolean result = false;
+        for (int i = 0, j = polygon.size() - 1; i < polygon.size(); j = i++) {
+            GeoLocation pi = polygon.get(i);
+            GeoLocation pj = polygon.get(j);
+            if ((pi.getLat() > point.getLat()) != (pj.getLat() > point.getLat())
+                    && point.getLng() < (pj.getLng() - pi.getLng()) * (point.getLat() - pi.getLat())
+                    / (pj.getLat() - pi.getLat()) + pi.getLng()) {
+                result = !result;
+            }
+        }
+        return result;
+    }
+}
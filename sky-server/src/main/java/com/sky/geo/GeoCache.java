@@ -0,0 +1,315 @@
+package com.sky.geo;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.constant.MessageConstant;
+import com.sky.exception.OrderBusinessException;
+import com.sky.utils.HttpClientUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 百度地图地理编码、路线规划结果缓存
+ * 店铺坐标启动时解析一次；用户坐标按规范化后的地址缓存；驾车距离按坐标对缓存。
+ * 用户坐标和驾车距离均为 本地有界缓存 + Redis(带过期时间) 两级
+ */
+@Component
+@Slf4j
+public class GeoCache {
+
+    private static final String GEOCODING_URL = "https://api.map.baidu.com/geocoding/v3";
+    private static final String DRIVING_URL = "https://api.map.baidu.com/directionlite/v1/driving";
+
+    private static final String ADDRESS_KEY_PREFIX = "GEO:ADDRESS:";
+    private static final String ROUTE_KEY_PREFIX = "GEO:ROUTE:";
+
+    @Autowired
+    private RedisTemplate redisTemplate;
+    //店铺地址
+    @Value("${sky.shop.address}")
+    private String shopAddress;
+    //百度的ak
+    @Value("${sky.baidu.ak}")
+    private String ak;
+    //本地缓存的最大条目数
+    @Value("${sky.baidu.cache.maximum-size:10000}")
+    private long maximumSize;
+    //地址坐标在Redis中的过期时间
+    @Value("${sky.baidu.cache.address-ttl:7d}")
+    private Duration addressTtl;
+    //驾车距离在Redis中的过期时间
+    @Value("${sky.baidu.cache.route-ttl:1d}")
+    private Duration routeTtl;
+
+    private Cache<String, GeoLocation> addressCache;
+    private Cache<String, Integer> routeCache;
+    private volatile GeoLocation shopLocation;
+
+    private final LongAdder addressHits = new LongAdder();
+    private final LongAdder addressMisses = new LongAdder();
+    private final LongAdder routeHits = new LongAdder();
+    private final LongAdder routeMisses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        addressCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(addressTtl)
+                .build();
+        routeCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(routeTtl)
+                .build();
+        //启动时解析店铺坐标，失败时不影响启动，首次下单时再解析
+        try {
+            getShopLocation();
+        } catch (Exception e) {
+            log.warn("启动时解析店铺坐标失败，将在首次使用时重试：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取店铺坐标
+     * @return
+     */
+    public GeoLocation getShopLocation() {
+        GeoLocation location = shopLocation;
+        if (location == null) {
+            synchronized (this) {
+                location = shopLocation;
+                if (location == null) {
+                    location = geocode(shopAddress, MessageConstant.PARSE_ADDRESS_ERROR_SHOP);
+                    log.info("店铺坐标: {}", location.toCoordinate());
+                    shopLocation = location;
+                }
+            }
+        }
+        return location;
+    }
+
+    /**
+     * 异步获取店铺坐标，未解析过时与用户坐标并行解析
+     * @return
+     */
+    public CompletableFuture<GeoLocation> getShopLocationAsync() {
+        GeoLocation location = shopLocation;
+        if (location != null) {
+            return CompletableFuture.completedFuture(location);
+        }
+        return geocodeAsync(shopAddress, MessageConstant.PARSE_ADDRESS_ERROR_SHOP)
+                .thenApply(resolved -> {
+                    log.info("店铺坐标: {}", resolved.toCoordinate());
+                    shopLocation = resolved;
+                    return resolved;
+                });
+    }
+
+    /**
+     * 获取用户地址坐标
+     * @param address
+     * @return
+     */
+    public GeoLocation getUserLocation(String address) {
+        return join(getUserLocationAsync(address));
+    }
+
+    /**
+     * 异步获取用户地址坐标，缓存命中时直接返回已完成的结果
+     * @param address
+     * @return
+     */
+    public CompletableFuture<GeoLocation> getUserLocationAsync(String address) {
+        String key = normalize(address);
+        GeoLocation location = addressCache.getIfPresent(key);
+        if (location == null) {
+            location = (GeoLocation) redisGet(ADDRESS_KEY_PREFIX + key);
+            if (location != null) {
+                addressCache.put(key, location);
+            }
+        }
+        if (location != null) {
+            addressHits.increment();
+            return CompletableFuture.completedFuture(location);
+        }
+        addressMisses.increment();
+        return geocodeAsync(address, MessageConstant.PARSE_ADDRESS_ERROR_USER)
+                .thenApply(resolved -> {
+                    //用户坐标属于用户的收货位置，只在debug级别输出
+                    log.debug("用户坐标: {}", resolved.toCoordinate());
+                    addressCache.put(key, resolved);
+                    redisSet(ADDRESS_KEY_PREFIX + key, resolved, addressTtl);
+                    return resolved;
+                });
+    }
+
+    /**
+     * 获取两个坐标之间的驾车距离（米）
+     * @param origin
+     * @param destination
+     * @return
+     */
+    public Integer getDrivingDistance(GeoLocation origin, GeoLocation destination) {
+        String key = origin.toCoordinate() + ":" + destination.toCoordinate();
+        Integer distance = routeCache.getIfPresent(key);
+        if (distance == null) {
+            distance = (Integer) redisGet(ROUTE_KEY_PREFIX + key);
+            if (distance != null) {
+                routeCache.put(key, distance);
+            }
+        }
+        if (distance != null) {
+            routeHits.increment();
+            return distance;
+        }
+        routeMisses.increment();
+        distance = driving(origin, destination);
+        routeCache.put(key, distance);
+        redisSet(ROUTE_KEY_PREFIX + key, distance, routeTtl);
+        return distance;
+    }
+
+    /**
+     * 缓存命中统计
+     * @return
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("addressHits", addressHits.sum());
+        stats.put("addressMisses", addressMisses.sum());
+        stats.put("routeHits", routeHits.sum());
+        stats.put("routeMisses", routeMisses.sum());
+        stats.put("addressSize", addressCache.estimatedSize());
+        stats.put("routeSize", routeCache.estimatedSize());
+        return stats;
+    }
+
+    /**
+     * 等待异步结果，解开CompletionException，使业务异常原样抛出
+     * @param future
+     * @return
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 调用百度地图地理编码接口
+     * @param address
+     * @param errorMessage 解析失败时的提示信息
+     * @return
+     */
+    private GeoLocation geocode(String address, String errorMessage) {
+        return join(geocodeAsync(address, errorMessage));
+    }
+
+    /**
+     * 异步调用百度地图地理编码接口
+     * @param address
+     * @param errorMessage 解析失败时的提示信息
+     * @return
+     */
+    private CompletableFuture<GeoLocation> geocodeAsync(String address, String errorMessage) {
+        Map<String, String> map = new HashMap<>();
+        map.put("address", address);
+        map.put("output", "json");
+        map.put("ak", ak);
+        //返回结果中包含用户的收货地址和坐标，不输出原文，只输出失败的状态码
+        return HttpClientUtil.doGetAsync(GEOCODING_URL, map).handle((json, e) -> {
+            if (e != null) {
+                //请求失败不缓存，下次重新解析
+                log.error("地址解析请求失败：{}", e.getMessage());
+                throw new OrderBusinessException(errorMessage);
+            }
+            JSONObject jsonObject = JSON.parseObject(json);
+            if (jsonObject == null || !"0".equals(jsonObject.getString("status"))) {
+                log.error("地址解析失败，状态: {}，{}", jsonObject == null ? null : jsonObject.getString("status"),
+                        jsonObject == null ? null : jsonObject.getString("message"));
+                throw new OrderBusinessException(errorMessage);
+            }
+            JSONObject location = jsonObject.getJSONObject("result").getJSONObject("location");
+            return new GeoLocation(location.getDoubleValue("lat"), location.getDoubleValue("lng"));
+        });
+    }
+
+    /**
+     * 调用百度地图驾车路线规划接口
+     * @param origin
+     * @param destination
+     * @return
+     */
+    private Integer driving(GeoLocation origin, GeoLocation destination) {
+        Map<String, String> map = new HashMap<>();
+        map.put("origin", origin.toCoordinate());
+        map.put("destination", destination.toCoordinate());
+        map.put("steps_info", "0");
+        map.put("ak", ak);
+        String json;
+        try {
+            json = HttpClientUtil.doGet(DRIVING_URL, map);
+        } catch (UncheckedIOException e) {
+            log.error("路线规划请求失败：{}", e.getMessage());
+            throw new OrderBusinessException(MessageConstant.ROUTE_PLANNING_FAILED);
+        }
+
+        JSONObject jsonObject = JSON.parseObject(json);
+        if (jsonObject == null || !"0".equals(jsonObject.getString("status"))) {
+            log.error("路线规划失败，状态: {}，{}", jsonObject == null ? null : jsonObject.getString("status"),
+                    jsonObject == null ? null : jsonObject.getString("message"));
+            throw new OrderBusinessException(MessageConstant.ROUTE_PLANNING_FAILED);
+        }
+        JSONArray routes = jsonObject.getJSONObject("result").getJSONArray("routes");
+        Integer distance = routes.getJSONObject(0).getInteger("distance");
+        log.debug("驾车距离: {}米", distance);
+        return distance;
+    }
+
+    /**
+     * 规范化地址，去掉空白字符并统一大小写，作为缓存key
+     * @param address
+     * @return
+     */
+    private String normalize(String address) {
+        return address.replaceAll("\\s+", "").toLowerCase(Locale.ROOT);
+    }
+
+    private Object redisGet(String key) {
+        try {
+            return redisTemplate.opsForValue().get(key);
+        } catch (Exception e) {
+            log.warn("读取Redis缓存失败，key: {}，{}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void redisSet(String key, Object value, Duration ttl) {
+        try {
+            redisTemplate.opsForValue().set(key, value, ttl);
+        } catch (Exception e) {
+            log.warn("写入Redis缓存失败，key: {}，{}", key, e.getMessage());
+        }
+    }
+}
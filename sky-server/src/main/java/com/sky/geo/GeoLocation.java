@@ -0,0 +1,33 @@
+package com.sky.geo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Locale;
+
+/**
+ * 经纬度坐标
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeoLocation implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    //纬度
+    private double lat;
+
+    //经度
+    private double lng;
+
+    /**
+     * 转换为百度地图接口使用的坐标格式 (纬度,经度)，保留6位小数（约0.1米精度）
+     * @return
+     */
+    public String toCoordinate() {
+        return String.format(Locale.ROOT, "%.6f,%.6f", lat, lng);
+    }
+}
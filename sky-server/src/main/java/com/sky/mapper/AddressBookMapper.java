@@ -27,6 +27,13 @@ public interface AddressBookMapper {
      */
     AddressBook getById(Long id);
 
+    /**
+     * 根据多个id批量查询地址
+     * @param ids
+     * @return
+     */
+    List<AddressBook> getByIds(List<Long> ids);
+
     /**
      * 根据id修改地址
      * @param addressBook
@@ -24,4 +24,11 @@ public interface DishFlavorMapper {
      * @return
      */
     List<DishFlavor> getByDishId(Long id);
+
+    /**
+     * 根据多个菜品id批量查询口味数据
+     * @param dishIds
+     * @return
+     */
+    List<DishFlavor> getByDishIds(List<Long> dishIds);
 }
@@ -19,4 +19,11 @@ public interface OrderDetailMapper {
      * @return
      */
     List<OrderDetail> getByOrderId(Long orderId);
+
+    /**
+     * 根据多个订单id批量查询订单明细，按订单id、明细id排序
+     * @param orderIds
+     * @return
+     */
+    List<OrderDetail> getByOrderIds(List<Long> orderIds);
 }
\ No newline at end of file
@@ -30,6 +30,14 @@ public interface OrderMapper {
      */
     void update(Orders orders);
 
+    /**
+     * 订单当前状态为expectedStatus时才修改
+     * @param orders
+     * @param expectedStatus
+     * @return 修改的行数，状态已被并发修改时为0
+     */
+    int updateByStatus(@Param("orders") Orders orders, @Param("expectedStatus") Integer expectedStatus);
+
     /**
      * 根据id查询订单
      * @param id
@@ -43,6 +51,19 @@ public interface OrderMapper {
      */
     Page<Orders> pageQuery(OrdersPageQueryDTO ordersPageQueryDTO);
 
+    /**
+     * 游标分页查询订单，按下单时间、id倒序，最多返回pageSize + 1条
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    List<Orders> cursorQuery(OrdersPageQueryDTO ordersPageQueryDTO);
+
+    /**
+     * 订单表的估算行数，取自表统计信息，不扫描表
+     * @return
+     */
+    Long estimateTotal();
+
     /**
      * 根据状态统计订单数量
      * @param status
@@ -50,6 +71,13 @@ public interface OrderMapper {
      */
     Integer countStatus(@Param("status") Integer status);
 
+    /**
+     * 按状态分组统计订单数量
+     * @param begin 下单时间下限，为null时统计全部订单
+     * @return 每行包含status、count
+     */
+    List<Map<String, Object>> countGroupByStatus(@Param("begin") LocalDateTime begin);
+
     /**
      * 根据状态和下单时间查询订单
      *
@@ -70,6 +70,13 @@ public interface SetmealMapper {
      */
     List<DishItemVO> getDishItemBySetmealId(Long id);
 
+    /**
+     * 查询套餐所在的分类id
+     * @param ids 套餐id
+     * @return
+     */
+    List<Long> getCategoryIdsByIds(List<Long> ids);
+
     /**
      * 根据条件统计套餐数量
      * @param map
@@ -2,6 +2,7 @@ package com.sky.mapper;
 
 import com.sky.entity.ShoppingCart;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
 
@@ -44,4 +45,43 @@ public interface ShoppingCartMapper {
      * @param shoppingCartList
      */
     void insertBatch(List<ShoppingCart> shoppingCartList);
-}
\ No newline at end of file
+
+    /**
+     * 购物车中已有该商品时数量原子加一
+     * @param shoppingCart 用户id、菜品id/套餐id、口味
+     * @return 影响行数，为0说明购物车中还没有该商品
+     */
+    int incrementNumber(ShoppingCart shoppingCart);
+
+    /**
+     * 插入购物车数据，同一商品已存在时（唯一键冲突）改为累加数量
+     * @param shoppingCartList number为要累加的数量
+     */
+    void upsertBatch(List<ShoppingCart> shoppingCartList);
+
+    /**
+     * 数量大于1时原子减一
+     * @param shoppingCart 用户id、菜品id/套餐id、口味
+     * @return 影响行数，为0说明商品不存在或数量为1
+     */
+    int decrementNumber(ShoppingCart shoppingCart);
+
+    /**
+     * 删除数量不大于1的指定商品
+     * @param shoppingCart 用户id、菜品id/套餐id、口味
+     */
+    void deleteLastOne(ShoppingCart shoppingCart);
+
+    /**
+     * 按商品批量扣减数量，一条update语句完成
+     * @param userId
+     * @param shoppingCartList number为要扣减的数量（正数）
+     */
+    void subtractBatch(@Param("userId") Long userId, @Param("shoppingCartList") List<ShoppingCart> shoppingCartList);
+
+    /**
+     * 删除用户购物车中数量不大于0的商品
+     * @param userId
+     */
+    void deleteEmptyByUserId(Long userId);
+}
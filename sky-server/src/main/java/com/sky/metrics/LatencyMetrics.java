@@ -0,0 +1,37 @@
+package com.sky.metrics;
+
+import com.sky.utils.LatencyHistogram;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按名称记录各业务阶段的耗时
+ */
+@Component
+public class LatencyMetrics {
+
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次耗时
+     * @param name 阶段名称
+     * @param nanos 纳秒
+     */
+    public void record(String name, long nanos) {
+        histograms.computeIfAbsent(name, key -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * 所有阶段的统计快照，按名称排序
+     * @return
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> map = new TreeMap<>();
+        histograms.forEach((name, histogram) -> map.put(name, histogram.snapshot()));
+        return map;
+    }
+}
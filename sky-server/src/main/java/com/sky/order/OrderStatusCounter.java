@@ -0,0 +1,256 @@
+package com.sky.order;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 各状态的订单数量计数
+ * 计数保存在Redis的hash中：ORDER_STATUS_COUNT 为全部订单，ORDER_STATUS_COUNT:{下单日期} 为当天下单的订单，field为订单状态；
+ * 下单和每次状态变更时通过Lua脚本同时修改两个hash，定时按一次 group by status 查询对账，纠正漏记、重复记录造成的偏差。
+ * 工作台、订单统计等读取本地保存的计数副本，副本最多每秒从Redis刷新一次
+ */
+@Component
+@Slf4j
+public class OrderStatusCounter {
+
+    public static final String KEY = "ORDER_STATUS_COUNT";
+
+    //当天计数的保留时间，只读取当天的计数，保留两天即可
+    private static final Duration DAY_KEY_TTL = Duration.ofDays(2);
+
+    //本地副本的刷新间隔（毫秒）
+    private static final long REFRESH_INTERVAL = 1000;
+
+    /**
+     * KEYS[1] 全部订单计数，KEYS[2] 下单当天的计数
+     * ARGV[1] 原状态（新订单为空字符串），ARGV[2] 新状态，ARGV[3] 当天计数的过期时间(秒)
+     */
+    private static final DefaultRedisScript<Long> TRANSITION_SCRIPT = new DefaultRedisScript<>(
+            "for i = 1, 2 do " +
+            "  if ARGV[1] ~= '' then redis.call('hincrby', KEYS[i], ARGV[1], -1) end " +
+            "  redis.call('hincrby', KEYS[i], ARGV[2], 1) " +
+            "end " +
+            "redis.call('expire', KEYS[2], ARGV[3]) " +
+            "return 1", Long.class);
+
+    /**
+     * KEYS[1] 计数hash，ARGV[1] 过期时间(秒)，0表示不过期，之后每两个参数为一个状态：状态、数量
+     * 整体替换为对账结果
+     */
+    private static final DefaultRedisScript<Long> RESET_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('del', KEYS[1]) " +
+            "for i = 2, #ARGV, 2 do redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+            "if tonumber(ARGV[1]) > 0 then redis.call('expire', KEYS[1], ARGV[1]) end " +
+            "return 1", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private OrderMapper orderMapper;
+
+    private volatile Counts counts;
+
+    @PostConstruct
+    public void init() {
+        reconcile();
+    }
+
+    /**
+     * 新订单
+     * @param orders 已写入数据库的订单，需包含状态和下单时间
+     */
+    public void created(Orders orders) {
+        transition(null, orders.getStatus(), orders.getOrderTime());
+    }
+
+    /**
+     * 订单状态变更，状态未变化时不计数
+     * @param ordersDB 变更前的订单，需包含状态和下单时间
+     * @param status 变更后的状态
+     */
+    public void transition(Orders ordersDB, Integer status) {
+        transition(ordersDB.getStatus(), status, ordersDB.getOrderTime());
+    }
+
+    /**
+     * 订单状态变更，状态未变化时不计数；Redis不可用时只记录日志，由下一次对账纠正
+     * @param from 原状态，新订单为null
+     * @param to 新状态
+     * @param orderTime 下单时间，决定计入哪一天
+     */
+    public void transition(Integer from, Integer to, LocalDateTime orderTime) {
+        if (to.equals(from)) {
+            return;
+        }
+        LocalDate date = orderTime == null ? LocalDate.now() : orderTime.toLocalDate();
+        try {
+            stringRedisTemplate.execute(TRANSITION_SCRIPT, List.of(KEY, dayKey(date)),
+                    from == null ? "" : String.valueOf(from), String.valueOf(to),
+                    String.valueOf(DAY_KEY_TTL.getSeconds()));
+        } catch (RuntimeException e) {
+            log.warn("更新订单状态计数失败，状态：{} -> {}，{}", from, to, e.getMessage());
+            return;
+        }
+        //本节点的变更立即可见
+        counts = null;
+    }
+
+    /**
+     * 全部订单中该状态的数量
+     * @param status
+     * @return
+     */
+    public Integer getTotal(Integer status) {
+        return current().total.getOrDefault(status, 0);
+    }
+
+    /**
+     * 当天下单的订单中该状态的数量
+     * @param status
+     * @return
+     */
+    public Integer getToday(Integer status) {
+        return current().today.getOrDefault(status, 0);
+    }
+
+    /**
+     * 当天下单的订单数量
+     * @return
+     */
+    public Integer getTodayAll() {
+        return current().today.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * 定时按数据库重新计数，纠正Redis中的偏差；对账期间发生的状态变更可能被覆盖，在下一次对账时纠正
+     */
+    @Scheduled(fixedRate = 300000, initialDelay = 300000)
+    public void reconcile() {
+        LocalDate date = LocalDate.now();
+        try {
+            reset(KEY, toCounts(orderMapper.countGroupByStatus(null)), null);
+            reset(dayKey(date), toCounts(orderMapper.countGroupByStatus(date.atStartOfDay())), DAY_KEY_TTL);
+        } catch (RuntimeException e) {
+            log.warn("订单状态计数对账失败：{}", e.getMessage());
+            return;
+        }
+        counts = null;
+    }
+
+    /**
+     * 用数据库中的计数替换Redis中的计数，有偏差时记录日志
+     * @param key
+     * @param expected
+     * @param ttl 为null时不过期
+     */
+    private void reset(String key, Map<Integer, Integer> expected, Duration ttl) {
+        Map<Integer, Integer> actual = toCounts(stringRedisTemplate.<String, String>opsForHash().entries(key));
+        if (!actual.equals(expected)) {
+            log.info("订单状态计数已按数据库纠正：{}，计数：{}，数据库：{}", key, actual, expected);
+        }
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(ttl == null ? 0 : ttl.getSeconds()));
+        expected.forEach((status, count) -> {
+            args.add(String.valueOf(status));
+            args.add(String.valueOf(count));
+        });
+        stringRedisTemplate.execute(RESET_SCRIPT, List.of(key), args.toArray());
+    }
+
+    /**
+     * 本地副本，过期或本节点有变更后从Redis重新读取；Redis不可用时继续使用旧副本
+     * @return
+     */
+    private Counts current() {
+        Counts current = counts;
+        LocalDate date = LocalDate.now();
+        if (current != null && current.date.equals(date)
+                && System.currentTimeMillis() - current.loadedAt < REFRESH_INTERVAL) {
+            return current;
+        }
+        try {
+            byte[] totalKey = KEY.getBytes(StandardCharsets.UTF_8);
+            byte[] todayKey = dayKey(date).getBytes(StandardCharsets.UTF_8);
+            List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.hashCommands().hGetAll(totalKey);
+                connection.hashCommands().hGetAll(todayKey);
+                return null;
+            });
+            current = new Counts(date, toCounts((Map<?, ?>) results.get(0)), toCounts((Map<?, ?>) results.get(1)));
+            counts = current;
+        } catch (RuntimeException e) {
+            log.warn("读取订单状态计数失败：{}", e.getMessage());
+            if (current == null) {
+                return new Counts(date, Map.of(), Map.of());
+            }
+        }
+        return current;
+    }
+
+    private static String dayKey(LocalDate date) {
+        return KEY + ":" + date;
+    }
+
+    /**
+     * 状态 -> 数量，数量为0的状态不保留
+     * @param entries Redis中的hash
+     * @return
+     */
+    private static Map<Integer, Integer> toCounts(Map<?, ?> entries) {
+        Map<Integer, Integer> map = new HashMap<>();
+        if (entries == null) {
+            return map;
+        }
+        entries.forEach((status, count) -> {
+            int value = Integer.parseInt(String.valueOf(count));
+            if (value != 0) {
+                map.put(Integer.valueOf(String.valueOf(status)), value);
+            }
+        });
+        return map;
+    }
+
+    private static Map<Integer, Integer> toCounts(List<Map<String, Object>> rows) {
+        Map<Integer, Integer> map = new HashMap<>();
+        rows.forEach(row -> {
+            if (row.get("status") != null) {
+                map.put(((Number) row.get("status")).intValue(), ((Number) row.get("count")).intValue());
+            }
+        });
+        return map;
+    }
+
+    private static final class Counts {
+
+        final LocalDate date;
+
+        final Map<Integer, Integer> total;
+
+        final Map<Integer, Integer> today;
+
+        final long loadedAt = System.currentTimeMillis();
+
+        Counts(LocalDate date, Map<Integer, Integer> total, Map<Integer, Integer> today) {
+            this.date = date;
+            this.total = total;
+            this.today = today;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.sky.service;
+
+import com.sky.catalog.MenuSnapshot;
+
+public interface MenuService {
+
+    /**
+     * 当前的完整菜单快照，目录数据变更后重新构建
+     * @return
+     */
+    MenuSnapshot getSnapshot();
+}
@@ -1,6 +1,7 @@
 package com.sky.service;
 
 import com.sky.dto.*;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
 import com.sky.vo.OrderPaymentVO;
 import com.sky.vo.OrderStatisticsVO;
@@ -55,6 +56,13 @@ public interface OrderService {
      */
     PageResult conditionSearch(OrdersPageQueryDTO ordersPageQueryDTO);
 
+    /**
+     * 游标分页搜索订单
+     * @param ordersPageQueryDTO cursorTime、cursorId为上一页最后一条订单，为空时查询第一页
+     * @return
+     */
+    CursorPageResult conditionSearchByCursor(OrdersPageQueryDTO ordersPageQueryDTO);
+
     /**
      * 统计各个状态的订单数据
      * @return
@@ -68,6 +76,13 @@ public interface OrderService {
      */
     PageResult pageQuery4User(OrdersPageQueryDTO ordersPageQueryDTO);
 
+    /**
+     * 游标分页查询历史订单
+     * @param ordersPageQueryDTO cursorTime、cursorId为上一页最后一条订单，为空时查询第一页
+     * @return
+     */
+    CursorPageResult cursorQuery4User(OrdersPageQueryDTO ordersPageQueryDTO);
+
     /**
      * 接单
      * @param ordersConfirmDTO
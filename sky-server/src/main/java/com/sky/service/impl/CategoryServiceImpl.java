@@ -1,7 +1,8 @@
 package com.sky.service.impl;
 
 import com.github.pagehelper.Page;
-import com.github.pagehelper.PageHelper;
+import com.sky.cache.PageCountCache;
+import com.sky.catalog.CatalogChangeEvent;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.StatusConstant;
 import com.sky.context.BaseContext;
@@ -16,6 +17,7 @@ import com.sky.result.PageResult;
 import com.sky.service.CategoryService;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,6 +33,10 @@ public class CategoryServiceImpl implements CategoryService {
     private DishMapper dishMapper;
     @Autowired
     private SetmealMapper setmealMapper;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private PageCountCache pageCountCache;
 
     @Override
     public void save(CategoryDTO categoryDTO) {
@@ -48,15 +54,16 @@ public class CategoryServiceImpl implements CategoryService {
 
         //调用持久层方法实现业务
         categoryMapper.insert(category);
+
+        eventPublisher.publishEvent(CatalogChangeEvent.of(CatalogChangeEvent.Type.CATEGORY, category.getId()));
     }
 
     @Override
     public PageResult pageQuery(CategoryPageQueryDTO categoryPageQueryDTO) {
-        //开始分页查询
-        PageHelper.startPage(categoryPageQueryDTO.getPage(), categoryPageQueryDTO.getPageSize());
-
-        //下一套sql进行分页，自动加入limit关键字分页
-        Page<Category> page = categoryMapper.pageQuery(categoryPageQueryDTO);
+        //开始分页查询，翻页时复用缓存的总数
+        Page<Category> page = pageCountCache.page(CategoryMapper.class, categoryPageQueryDTO,
+                categoryPageQueryDTO.getPage(), categoryPageQueryDTO.getPageSize(),
+                () -> categoryMapper.pageQuery(categoryPageQueryDTO));
         return new PageResult(page.getTotal(), page.getResult());
     }
 
@@ -79,6 +86,8 @@ public class CategoryServiceImpl implements CategoryService {
         }
         //删除分页数据
         categoryMapper.deleteById(id);
+
+        eventPublisher.publishEvent(CatalogChangeEvent.of(CatalogChangeEvent.Type.CATEGORY, id));
     }
 
     /**
@@ -97,6 +106,8 @@ public class CategoryServiceImpl implements CategoryService {
         category.setUpdateUser(BaseContext.getCurrentId());*/
 
         categoryMapper.update(category);
+
+        eventPublisher.publishEvent(CatalogChangeEvent.of(CatalogChangeEvent.Type.CATEGORY, category.getId()));
     }
 
     /**
@@ -113,6 +124,8 @@ public class CategoryServiceImpl implements CategoryService {
                 .updateUser(BaseContext.getCurrentId())*/
                 .build();
         categoryMapper.update(category);
+
+        eventPublisher.publishEvent(CatalogChangeEvent.of(CatalogChangeEvent.Type.CATEGORY, id));
     }
 
     /**
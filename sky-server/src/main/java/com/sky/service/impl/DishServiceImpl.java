@@ -1,7 +1,8 @@
 package com.sky.service.impl;
 
 import com.github.pagehelper.Page;
-import com.github.pagehelper.PageHelper;
+import com.sky.cache.PageCountCache;
+import com.sky.catalog.CatalogChangeEvent;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.StatusConstant;
 import com.sky.dto.DishDTO;
@@ -21,13 +22,17 @@ import com.sky.vo.DishVO;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.parsing.BeanEntry;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.net.URL;
 import java.net.MalformedURLException;
 
@@ -44,6 +49,10 @@ public class DishServiceImpl implements DishService {
     private AliOssUtil aliOssUtil;
     @Autowired
     private SetmealMapper setmealMapper;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private PageCountCache pageCountCache;
 
     /**
      * 新增菜品和对应的口味
@@ -51,7 +60,6 @@ public class DishServiceImpl implements DishService {
      * @param dishDTO
      */
     @Transactional
-    @CacheEvict(value = "dishCache", key = "#dishDTO.categoryId")
     @Override
     public void saveWithFlavor(DishDTO dishDTO) {
         Dish dish = new Dish();
@@ -71,6 +79,9 @@ public class DishServiceImpl implements DishService {
         }
         //向口味表中插入n条数据
         dishFlavorMapper.insertBatch(flavors);
+
+        eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.DISH, List.of(dishId),
+                List.of(dishDTO.getCategoryId()), null));
     }
 
     /**
@@ -81,8 +92,9 @@ public class DishServiceImpl implements DishService {
      */
     @Override
     public PageResult pageQuery(DishPageQueryDTO dishPageQueryDTO) {
-        PageHelper.startPage(dishPageQueryDTO.getPage(), dishPageQueryDTO.getPageSize());
-        Page<DishVO> page = dishMapper.pageQuery(dishPageQueryDTO);
+        Page<DishVO> page = pageCountCache.page(DishMapper.class, dishPageQueryDTO,
+                dishPageQueryDTO.getPage(), dishPageQueryDTO.getPageSize(),
+                () -> dishMapper.pageQuery(dishPageQueryDTO));
         return new PageResult(page.getTotal(), page.getResult());
     }
 
@@ -92,12 +104,14 @@ public class DishServiceImpl implements DishService {
      * @param ids
      */
     @Transactional
-    @CacheEvict(value = "dishCache", allEntries = true)
     @Override
     public void deleteBatch(List<Long> ids) {
+        //被删除菜品所在的分类
+        Set<Long> categoryIds = new HashSet<>();
         //判断当前菜品是否能够删除---是否存在启售中的菜品？？
         for (Long id : ids) {
             Dish dish = dishMapper.getById(id);
+            categoryIds.add(dish.getCategoryId());
             if (dish.getStatus() == StatusConstant.ENABLE) {
                 //当前菜品处于起售中的状态，不能删除
                 throw new DeletionNotAllowedException(MessageConstant.DISH_ON_SALE);
@@ -130,6 +144,9 @@ public class DishServiceImpl implements DishService {
             //删除菜品关联的口味数据
             dishFlavorMapper.deleteByDishId(id);
         }
+
+        //被套餐关联的菜品不能删除，套餐缓存不受影响
+        eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.DISH, ids, categoryIds, null));
     }
 
     /**
@@ -157,7 +174,6 @@ public class DishServiceImpl implements DishService {
      * @param dishDTO
      */
     @Transactional
-    @CacheEvict(value = "dishCache", allEntries = true)
     @Override
     public void updateWithFlavor(DishDTO dishDTO) {
         // 检查ID是否为空
@@ -202,6 +218,15 @@ public class DishServiceImpl implements DishService {
             //向口味表插入n条数据
             dishFlavorMapper.insertBatch(flavors);
         }
+
+        //菜品可能换了分类，新旧分类的缓存都需要失效；套餐缓存只有套餐本身的信息，不受影响
+        List<Long> categoryIds = new ArrayList<>();
+        categoryIds.add(dishDTO.getCategoryId());
+        if (originalDish != null) {
+            categoryIds.add(originalDish.getCategoryId());
+        }
+        eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.DISH, List.of(dishDTO.getId()),
+                categoryIds, null));
     }
 
     /**
@@ -223,16 +248,19 @@ public class DishServiceImpl implements DishService {
      * @param status
      * @param id
      */
+    @Transactional
     @Override
-    @CacheEvict(value = "dishCache", allEntries = true)
     public void startOrStop(Integer status, Long id) {
         //获取当前菜品的套餐ID
         List<Long> dishId=new ArrayList<>();
         dishId.add(id);
+        //被一起停售的套餐所在的分类
+        List<Long> setmealCategoryIds = new ArrayList<>();
         //菜品停售，则包含菜品和套餐也一起停售
         if(status==StatusConstant.DISABLE){
             List<Long> setmealIds=setMealDishMapper.getSetMealIdsByDishIds(dishId);
             if(setmealIds!=null&&setmealIds.size()>0){
+                setmealCategoryIds = setmealMapper.getCategoryIdsByIds(setmealIds);
                 setmealIds.forEach(Id -> {
                     Setmeal setmeal = Setmeal.builder()
                             .id(Id)
@@ -247,6 +275,10 @@ public class DishServiceImpl implements DishService {
                 .status(status)
                 .build();
         dishMapper.update(dish);
+
+        Dish current = dishMapper.getById(id);
+        eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.DISH, dishId,
+                current == null ? null : List.of(current.getCategoryId()), setmealCategoryIds));
     }
 
     /**
@@ -255,16 +287,21 @@ public class DishServiceImpl implements DishService {
      * @return
      */
     @Override
-    @Cacheable(value = "dishCache", key = "#dish.categoryId")
+    @Cacheable(value = "dishCache", key = "#dish.categoryId", sync = true)
     public List<DishVO> listWithFlavor(Dish dish) {
         List<Dish> dishList=dishMapper.list(dish);
         List<DishVO> dishVOList=new ArrayList<>();
+        if (dishList.isEmpty()) {
+            return dishVOList;
+        }
+        //一次查询所有菜品的口味，按菜品id分组
+        List<Long> dishIds = dishList.stream().map(Dish::getId).toList();
+        Map<Long, List<DishFlavor>> flavorMap = dishFlavorMapper.getByDishIds(dishIds).stream()
+                .collect(Collectors.groupingBy(DishFlavor::getDishId));
         for (Dish d : dishList) {
             DishVO dishVO=new DishVO();
             BeanUtils.copyProperties(d,dishVO);
-            //根据菜品id查询对应的口味
-            List<DishFlavor> flavors = dishFlavorMapper.getByDishId(d.getId());
-            dishVO.setFlavors(flavors);
+            dishVO.setFlavors(flavorMap.getOrDefault(d.getId(), new ArrayList<>()));
             dishVOList.add(dishVO);
         }
         return dishVOList;
@@ -1,7 +1,7 @@
 package com.sky.service.impl;
 
 import com.github.pagehelper.Page;
-import com.github.pagehelper.PageHelper;
+import com.sky.cache.PageCountCache;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.PasswordConstant;
 import com.sky.constant.StatusConstant;
@@ -30,6 +30,8 @@ public class EmployeeServiceImpl implements EmployeeService {
 
     @Autowired
     private EmployeeMapper employeeMapper;
+    @Autowired
+    private PageCountCache pageCountCache;
 
     /**
      * 员工登录
@@ -107,10 +109,10 @@ public class EmployeeServiceImpl implements EmployeeService {
     @Override
     public PageResult pageQuery(EmployeePageQueryDTO employeePageQueryDTO) {
         // select * from employee limit 0, 10
-        //开始分页查询
-        PageHelper.startPage(employeePageQueryDTO.getPage(), employeePageQueryDTO.getPageSize());
-
-        Page<Employee> page = employeeMapper.pageQuery(employeePageQueryDTO);
+        //开始分页查询，翻页时复用缓存的总数
+        Page<Employee> page = pageCountCache.page(EmployeeMapper.class, employeePageQueryDTO,
+                employeePageQueryDTO.getPage(), employeePageQueryDTO.getPageSize(),
+                () -> employeeMapper.pageQuery(employeePageQueryDTO));
 
         //获取返回数据
         long total = page.getTotal();
@@ -0,0 +1,152 @@
+package com.sky.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.sky.cache.SerializedResponse;
+import com.sky.catalog.CatalogChangeEvent;
+import com.sky.catalog.CatalogRefreshEvent;
+import com.sky.catalog.MenuSnapshot;
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.DishFlavor;
+import com.sky.entity.Setmeal;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.mapper.CategoryMapper;
+import com.sky.mapper.DishFlavorMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.result.Result;
+import com.sky.service.MenuService;
+import com.sky.vo.DishVO;
+import com.sky.vo.MenuCategoryVO;
+import com.sky.vo.MenuSnapshotVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class MenuServiceImpl implements MenuService {
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+    @Autowired
+    private DishMapper dishMapper;
+    @Autowired
+    private DishFlavorMapper dishFlavorMapper;
+    @Autowired
+    private SetmealMapper setmealMapper;
+
+    //与消息转换器使用相同的序列化规则
+    private final JacksonObjectMapper objectMapper = new JacksonObjectMapper();
+
+    //目录版本号，菜品、套餐、分类每次变更加一
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile MenuSnapshot snapshot;
+
+    /**
+     * 当前的完整菜单快照，目录版本变化后的第一次访问时重新构建
+     * @return
+     */
+    @Override
+    public MenuSnapshot getSnapshot() {
+        MenuSnapshot current = snapshot;
+        if (current != null && current.getVersion() == version.get()) {
+            return current;
+        }
+        return rebuild();
+    }
+
+    /**
+     * 目录数据变更，事务提交后使快照过期
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        version.incrementAndGet();
+    }
+
+    /**
+     * 其他节点修改了目录，使快照过期
+     * @param event
+     */
+    @EventListener
+    public void onCatalogRefresh(CatalogRefreshEvent event) {
+        version.incrementAndGet();
+    }
+
+    private synchronized MenuSnapshot rebuild() {
+        long currentVersion = version.get();
+        MenuSnapshot current = snapshot;
+        if (current != null && current.getVersion() == currentVersion) {
+            //其他线程已经构建好
+            return current;
+        }
+        long start = System.currentTimeMillis();
+        MenuSnapshotVO menu = loadMenu();
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(Result.success(menu));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("菜单序列化失败", e);
+        }
+        String etag = SerializedResponse.etag(json);
+        //内容没有变化时沿用原来的字节，ETag保持不变
+        if (current != null && current.getEtag().equals(etag)) {
+            snapshot = new MenuSnapshot(currentVersion, etag, current.getJson(), current.getGzip(), menu);
+        } else {
+            snapshot = new MenuSnapshot(currentVersion, etag, json, SerializedResponse.gzip(json), menu);
+        }
+        log.info("菜单快照构建完成，版本：{}，ETag：{}，大小：{}字节，压缩后：{}字节，耗时：{}ms", currentVersion, etag,
+                json.length, snapshot.getGzip().length, System.currentTimeMillis() - start);
+        return snapshot;
+    }
+
+    /**
+     * 查询所有启用的分类及其下在售的菜品（含口味）、套餐
+     * @return
+     */
+    private MenuSnapshotVO loadMenu() {
+        List<Category> categories = categoryMapper.list(null);
+        List<Dish> dishes = dishMapper.list(Dish.builder().status(StatusConstant.ENABLE).build());
+        List<Setmeal> setmeals = setmealMapper.list(Setmeal.builder().status(StatusConstant.ENABLE).build());
+
+        Map<Long, List<DishFlavor>> flavorMap = dishes.isEmpty() ? Map.of()
+                : dishFlavorMapper.getByDishIds(dishes.stream().map(Dish::getId).toList()).stream()
+                        .collect(Collectors.groupingBy(DishFlavor::getDishId));
+        Map<Long, List<DishVO>> dishMap = dishes.stream().map(dish -> {
+            DishVO dishVO = new DishVO();
+            BeanUtils.copyProperties(dish, dishVO);
+            dishVO.setFlavors(flavorMap.getOrDefault(dish.getId(), new ArrayList<>()));
+            return dishVO;
+        }).collect(Collectors.groupingBy(DishVO::getCategoryId));
+        Map<Long, List<Setmeal>> setmealMap = setmeals.stream().collect(Collectors.groupingBy(Setmeal::getCategoryId));
+
+        //分类查询结果已按sort排序
+        List<MenuCategoryVO> categoryVOList = new ArrayList<>();
+        for (Category category : categories) {
+            if (!StatusConstant.ENABLE.equals(category.getStatus())) {
+                continue;
+            }
+            categoryVOList.add(MenuCategoryVO.builder()
+                    .id(category.getId())
+                    .type(category.getType())
+                    .name(category.getName())
+                    .sort(category.getSort())
+                    .dishes(dishMap.getOrDefault(category.getId(), new ArrayList<>()))
+                    .setmeals(setmealMap.getOrDefault(category.getId(), new ArrayList<>()))
+                    .build());
+        }
+        return MenuSnapshotVO.builder().categories(categoryVOList).build();
+    }
+}
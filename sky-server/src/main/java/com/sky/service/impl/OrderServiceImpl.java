@@ -1,20 +1,31 @@
 package com.sky.service.impl;
 
 import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
+import com.sky.cache.PageCountCache;
+import com.sky.cart.CartStore;
+import com.sky.catalog.CatalogHolder;
+import com.sky.catalog.CatalogItem;
+import com.sky.catalog.CatalogSnapshot;
 import com.sky.constant.MessageConstant;
 import com.sky.context.BaseContext;
 import com.sky.dto.*;
 import com.sky.entity.*;
 import com.sky.exception.AddressBookBusinessException;
 import com.sky.exception.OrderBusinessException;
+import com.sky.geo.DeliveryZone;
+import com.sky.geo.GeoCache;
+import com.sky.geo.GeoLocation;
 import com.sky.mapper.*;
+import com.sky.metrics.LatencyMetrics;
+import com.sky.order.OrderStatusCounter;
+import com.sky.properties.PageCountProperties;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
 import com.sky.service.OrderService;
-import com.sky.utils.HttpClientUtil;
+import com.sky.utils.SnowflakeIdGenerator;
 import com.sky.utils.WeChatPayUtil;
 import com.sky.vo.OrderPaymentVO;
 import com.sky.vo.OrderStatisticsVO;
@@ -26,7 +37,7 @@ import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.CollectionUtils;
 
 import java.math.BigDecimal;
@@ -35,16 +46,28 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class OrderServiceImpl implements OrderService {
+
+    //游标分页未指定每页条数时的默认值
+    private static final int DEFAULT_PAGE_SIZE = 10;
+
+    //游标分页每页条数的上限，超过时按上限查询
+    private static final int MAX_PAGE_SIZE = 100;
+
+    //原有的任意位置模糊匹配
+    private static final String SEARCH_MODE_LIKE = "like";
+
     @Autowired
     private OrderMapper orderMapper;
     @Autowired
-    private ShoppingCartMapper shoppingCartMapper;
+    private CartStore cartStore;
     @Autowired
     private AddressBookMapper addressBookMapper;
     @Autowired
@@ -55,21 +78,37 @@ public class OrderServiceImpl implements OrderService {
     private OrderDetailMapper orderDetailMapper;
     @Autowired
     private WebSocketServer webSocketServer;
-    //店铺地址
-    @Value("${sky.shop.address}")
-    private String shopAddress;
-    //百度的ak
-    @Value("${sky.baidu.ak}")
-    private String ak;
+    @Autowired
+    private GeoCache geoCache;
+    @Autowired
+    private DeliveryZone deliveryZone;
+    @Autowired
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private LatencyMetrics latencyMetrics;
+    @Autowired
+    private CatalogHolder catalogHolder;
+    @Autowired
+    private PageCountCache pageCountCache;
+    @Autowired
+    private PageCountProperties pageCountProperties;
+    @Autowired
+    private OrderStatusCounter orderStatusCounter;
+
+    @Value("${sky.order.search-mode:indexed}")
+    private String searchMode;
 
     /**
      * 用户下单
+     * 远程调用和读操作放在事务之外，数据库连接只在写订单、写明细、清空购物车期间占用
      * @param ordersSubmitDTO
      * @return
      */
     @Override
-    @Transactional
     public OrderSubmitVO submitOrder(OrdersSubmitDTO ordersSubmitDTO) {
+        long start = System.nanoTime();
         //1.异常情况的处理（收获地址为空、超出配送范围、购物车为空）
         AddressBook addressBook=addressBookMapper.getById(ordersSubmitDTO.getAddressBookId());
         if (addressBook==null){
@@ -78,16 +117,14 @@ public class OrderServiceImpl implements OrderService {
         }
         //检查用户的收获地址是否在配送范围内
         checkOutOfRange(addressBook.getCityName()+addressBook.getDistrictName()+addressBook.getDetail());
-        ShoppingCart shoppingCart=new ShoppingCart();
         //查询当前用户的购物车数据
         Long userId = BaseContext.getCurrentId();
-        shoppingCart.setUserId(userId);
-        List<ShoppingCart> shoppingCartList = shoppingCartMapper.list(shoppingCart);
-        if (shoppingCartList.isEmpty()||shoppingCartList==null){
+        List<ShoppingCart> shoppingCartList = cartStore.list(userId);
+        if (shoppingCartList==null||shoppingCartList.isEmpty()){
             //抛出业务异常
             throw new AddressBookBusinessException(MessageConstant.SHOPPING_CART_IS_NULL);
         }
-        //2.向订单表插入一条数据
+        //2.构造订单数据
         Orders orders=new Orders();
         BeanUtils.copyProperties(ordersSubmitDTO,orders);
         //下单时间
@@ -96,8 +133,8 @@ public class OrderServiceImpl implements OrderService {
         orders.setPayStatus(Orders.UN_PAID);
         //订单状态
         orders.setStatus(Orders.PENDING_PAYMENT);
-        //通过使用时间戳和随机数对用户的订单号进行生成，防止订单号重复
-        orders.setNumber(String.valueOf(System.currentTimeMillis())+(int)(Math.random()*1000000));
+        //通过雪花算法生成订单号，多实例下唯一且随时间递增
+        orders.setNumber(String.valueOf(snowflakeIdGenerator.nextId()));
         //收获人电话
         orders.setPhone(addressBook.getPhone());
         //收获人
@@ -110,22 +147,29 @@ public class OrderServiceImpl implements OrderService {
         orders.setAddress(address);
         //用户id
         orders.setUserId(userId);
-
-        orderMapper.insert(orders);
-
-        //创建集合存储Detail数据
-        List<OrderDetail> orderDetailList=new ArrayList<>();
-        //3.向订单明细表插入n条数据
-        for (ShoppingCart cart : shoppingCartList) {
-            OrderDetail orderDetail=new OrderDetail();//订单明细
-            BeanUtils.copyProperties(cart,orderDetail);
-            orderDetail.setOrderId(orders.getId());//设置当前订单明细关联的订单id
-            orderDetailList.add(orderDetail);
+        //按目录快照重新校验商品并定价，订单明细以当前价格为准
+        List<OrderDetail> orderDetailList = priceOrderDetails(shoppingCartList, orders);
+        long validated = System.nanoTime();
+        latencyMetrics.record("order.submit.validate", validated - start);
+
+        //3.在事务中写入订单、订单明细并清空购物车
+        //失败、回滚的提交同样记录耗时
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                orderMapper.insert(orders);
+
+                //向订单明细表插入n条数据
+                orderDetailList.forEach(orderDetail -> orderDetail.setOrderId(orders.getId()));//设置当前订单明细关联的订单id
+                orderDetailMapper.insertBatch(orderDetailList);
+                //清空当前用户的购物车数据
+                cartStore.clear(userId);
+            });
+        } finally {
+            latencyMetrics.record("order.submit.write", System.nanoTime() - validated);
         }
-        orderDetailMapper.insertBatch(orderDetailList);
-        //4.清空当前用户的购物车数据
-        shoppingCartMapper.deleteByUserId(userId);
-        //5.封装VO层数据并返回
+        orderStatusCounter.created(orders);
+
+        //4.封装VO层数据并返回
         return OrderSubmitVO.builder()
                 .id(orders.getId())
                 .orderTime(orders.getOrderTime())
@@ -198,7 +242,10 @@ public class OrderServiceImpl implements OrderService {
                 .checkoutTime(LocalDateTime.now())
                 .build();
 
-        orderMapper.update(orders);
+        //重复的支付回调只推送一次来单提醒
+        if (!updateStatus(orders, ordersDB)) {
+            return;
+        }
         //通过Websocket推送消息 type orderId content
         Map map=new HashMap();
         map.put("type",1);//1表示来单提醒，2表示用户催单
@@ -242,22 +289,54 @@ public class OrderServiceImpl implements OrderService {
     public PageResult pageQuery4User(OrdersPageQueryDTO ordersPageQueryDTO) {
         PageHelper.startPage(ordersPageQueryDTO.getPage(),ordersPageQueryDTO.getPageSize());
         ordersPageQueryDTO.setUserId(BaseContext.getCurrentId());
+        prepareSearch(ordersPageQueryDTO);
         Page<Orders> page = orderMapper.pageQuery(ordersPageQueryDTO);
 
+        return new PageResult(page.getTotal(),getOrderVOList4User(page));
+    }
+
+    /**
+     * 游标分页查询历史订单，不查询总数
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    @Override
+    public CursorPageResult cursorQuery4User(OrdersPageQueryDTO ordersPageQueryDTO) {
+        ordersPageQueryDTO.setUserId(BaseContext.getCurrentId());
+        prepareSearch(ordersPageQueryDTO);
+        return cursorQuery(ordersPageQueryDTO, this::getOrderVOList4User);
+    }
+
+    /**
+     * 历史订单列表：订单明细和拼接好的地址
+     * @param ordersList
+     * @return
+     */
+    private List<OrderVO> getOrderVOList4User(List<Orders> ordersList) {
         List<OrderVO> list =new ArrayList<>();
+        if (ordersList.isEmpty()) {
+            return list;
+        }
 
-        for (Orders orders : page) {
-            // 获取订单详情
-            List<OrderDetail> orderDetails = orderDetailMapper.getByOrderId(orders.getId());
-            
+        // 一次查询出本页所有订单的明细和地址，按id分组
+        Map<Long, List<OrderDetail>> orderDetailMap = orderDetailMapper.getByOrderIds(
+                        ordersList.stream().map(Orders::getId).toList()).stream()
+                .collect(Collectors.groupingBy(OrderDetail::getOrderId));
+        List<Long> addressBookIds = ordersList.stream().map(Orders::getAddressBookId)
+                .filter(id -> id != null).distinct().toList();
+        Map<Long, AddressBook> addressBookMap = addressBookIds.isEmpty() ? Map.of()
+                : addressBookMapper.getByIds(addressBookIds).stream()
+                        .collect(Collectors.toMap(AddressBook::getId, addressBook -> addressBook));
+
+        for (Orders orders : ordersList) {
             // 构造OrderVO
             OrderVO orderVO = new OrderVO();
             BeanUtils.copyProperties(orders,orderVO);
-            orderVO.setOrderDetailList(orderDetails);
+            orderVO.setOrderDetailList(orderDetailMap.getOrDefault(orders.getId(), new ArrayList<>()));
             
             // 如果有地址id，则从地址簿中获取详细地址信息
             if (orders.getAddressBookId() != null) {
-                AddressBook addressBook = addressBookMapper.getById(orders.getAddressBookId());
+                AddressBook addressBook = addressBookMap.get(orders.getAddressBookId());
                 if (addressBook != null) {
                     // 拼接完整地址信息
                     String address = addressBook.getProvinceName() + 
@@ -271,7 +350,7 @@ public class OrderServiceImpl implements OrderService {
             list.add(orderVO);
         }
 
-        return new PageResult(page.getTotal(),list);
+        return list;
     }
 
     /**
@@ -292,12 +371,17 @@ public class OrderServiceImpl implements OrderService {
             log.info("找到最新待接单订单，订单ID: {}", latestOrder.getId());
         }
         
+        Orders ordersDB = orderMapper.getById(ordersConfirmDTO.getId());
+        if (ordersDB == null) {
+            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+        }
+
         Orders orders = Orders.builder()
                 .id(ordersConfirmDTO.getId())
                 .status(Orders.CONFIRMED)
                 .build();
 
-        orderMapper.update(orders);
+        updateStatus(orders, ordersDB);
         
         // 添加日志以便调试
         log.info("订单已更新为已接单状态，订单ID: {}", ordersConfirmDTO.getId());
@@ -344,7 +428,7 @@ public class OrderServiceImpl implements OrderService {
                 .rejectionReason(ordersRejectionDTO.getRejectionReason())
                 .cancelTime(LocalDateTime.now())
                 .build();
-        orderMapper.update(orders);
+        updateStatus(orders, ordersDB);
         //添加日志以便调试
         log.info("订单已更新为拒单状态，订单ID: {}", ordersRejectionDTO.getId());
     }
@@ -398,7 +482,7 @@ public class OrderServiceImpl implements OrderService {
             */
         }
         
-        orderMapper.update(orders);
+        updateStatus(orders, ordersDB);
         log.info("订单已取消，订单ID: {}", ordersCancelDTO.getId());
     }
 
@@ -418,7 +502,7 @@ public class OrderServiceImpl implements OrderService {
                 .id(id)
                 .status(Orders.DELIVERY_IN_PROGRESS)
                 .build();
-        orderMapper.update(orders);
+        updateStatus(orders, ordersDB);
     }
 
     /**
@@ -438,7 +522,7 @@ public class OrderServiceImpl implements OrderService {
                 .status(Orders.COMPLETED)
                 .deliveryTime(LocalDateTime.now())
                 .build();
-        orderMapper.update(orders);
+        updateStatus(orders, ordersDB);
     }
 
     /**
@@ -497,7 +581,7 @@ public class OrderServiceImpl implements OrderService {
         orders.setStatus(Orders.CANCELLED);
         orders.setCancelReason("用户取消");
         orders.setCancelTime(LocalDateTime.now());
-        orderMapper.update(orders);
+        updateStatus(orders, ordersDB);
     }
 
     /**
@@ -519,8 +603,8 @@ public class OrderServiceImpl implements OrderService {
             shoppingCart.setCreateTime(LocalDateTime.now());
             return shoppingCart;
         }).toList();
-        //将购物车数据批量插入到数据库中
-        shoppingCartMapper.insertBatch(shoppingCartList);
+        //将购物车数据批量加入购物车
+        cartStore.addAll(shoppingCartList);
     }
 
     /**
@@ -529,9 +613,12 @@ public class OrderServiceImpl implements OrderService {
      * @return
      */
     public PageResult conditionSearch(OrdersPageQueryDTO ordersPageQueryDTO) {
-        PageHelper.startPage(ordersPageQueryDTO.getPage(), ordersPageQueryDTO.getPageSize());
-
-        Page<Orders> page = orderMapper.pageQuery(ordersPageQueryDTO);
+        prepareSearch(ordersPageQueryDTO);
+        //翻页时复用缓存的总数；开启估算后，不带条件的搜索使用表统计信息中的行数
+        Page<Orders> page = pageCountCache.page(OrderMapper.class, ordersPageQueryDTO,
+                ordersPageQueryDTO.getPage(), ordersPageQueryDTO.getPageSize(),
+                () -> orderMapper.pageQuery(ordersPageQueryDTO),
+                pageCountProperties.isEstimateOrderTotal() ? orderMapper::estimateTotal : null);
 
         // 部分订单状态，需要额外返回订单菜品信息，将Orders转化为OrderVO
         List<OrderVO> orderVOList = getOrderVOList(page);
@@ -539,16 +626,97 @@ public class OrderServiceImpl implements OrderService {
         return new PageResult(page.getTotal(), orderVOList);
     }
 
+    /**
+     * 游标分页搜索订单，不查询总数
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    @Override
+    public CursorPageResult conditionSearchByCursor(OrdersPageQueryDTO ordersPageQueryDTO) {
+        prepareSearch(ordersPageQueryDTO);
+        return cursorQuery(ordersPageQueryDTO, this::getOrderVOList);
+    }
+
+    /**
+     * 按读取到的状态条件修改订单，修改成功后更新状态计数
+     * 订单状态已被并发请求修改时：已是目标状态视为重复操作（如重复取消、重复支付回调），否则抛出订单状态错误
+     * @param orders 要修改的字段，包含目标状态
+     * @param ordersDB 修改前读取的订单
+     * @return 是否由本次请求完成修改
+     */
+    private boolean updateStatus(Orders orders, Orders ordersDB) {
+        if (orderMapper.updateByStatus(orders, ordersDB.getStatus()) == 1) {
+            orderStatusCounter.transition(ordersDB, orders.getStatus());
+            return true;
+        }
+        Orders latest = orderMapper.getById(ordersDB.getId());
+        if (latest != null && orders.getStatus().equals(latest.getStatus())) {
+            log.info("订单已是目标状态，忽略重复操作，订单ID：{}，状态：{}", ordersDB.getId(), latest.getStatus());
+            return false;
+        }
+        throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+    }
+
+    /**
+     * 设置订单号、手机号的搜索方式；使用索引匹配时去掉首尾空格并转义LIKE通配符，避免输入的%退化为全表扫描
+     * @param ordersPageQueryDTO
+     */
+    private void prepareSearch(OrdersPageQueryDTO ordersPageQueryDTO) {
+        ordersPageQueryDTO.setSearchMode(searchMode);
+        if (SEARCH_MODE_LIKE.equals(searchMode)) {
+            return;
+        }
+        String phone = ordersPageQueryDTO.getPhone() == null ? null : ordersPageQueryDTO.getPhone().trim();
+        ordersPageQueryDTO.setNumber(escapeLike(ordersPageQueryDTO.getNumber()));
+        ordersPageQueryDTO.setPhone(escapeLike(phone));
+        //先反转再转义，转义符保持在通配符之前
+        ordersPageQueryDTO.setPhoneReversed(phone == null ? null : escapeLike(new StringBuilder(phone).reverse().toString()));
+    }
+
+    private static String escapeLike(String text) {
+        if (text == null) {
+            return null;
+        }
+        return text.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * 按(order_time, id)游标查询一页订单：多查一条判断是否还有下一页，下一页的游标为本页最后一条订单
+     * @param ordersPageQueryDTO
+     * @param assembler 将订单转换为OrderVO
+     * @return
+     */
+    private CursorPageResult cursorQuery(OrdersPageQueryDTO ordersPageQueryDTO, Function<List<Orders>, List<OrderVO>> assembler) {
+        if (ordersPageQueryDTO.getPageSize() <= 0) {
+            ordersPageQueryDTO.setPageSize(DEFAULT_PAGE_SIZE);
+        } else if (ordersPageQueryDTO.getPageSize() > MAX_PAGE_SIZE) {
+            ordersPageQueryDTO.setPageSize(MAX_PAGE_SIZE);
+        }
+        int pageSize = ordersPageQueryDTO.getPageSize();
+        List<Orders> ordersList = orderMapper.cursorQuery(ordersPageQueryDTO);
+        boolean hasMore = ordersList.size() > pageSize;
+        if (hasMore) {
+            ordersList = ordersList.subList(0, pageSize);
+        }
+        CursorPageResult result = new CursorPageResult(assembler.apply(ordersList), hasMore, null, null);
+        if (!ordersList.isEmpty()) {
+            Orders last = ordersList.get(ordersList.size() - 1);
+            result.setNextCursorTime(last.getOrderTime());
+            result.setNextCursorId(last.getId());
+        }
+        return result;
+    }
+
     /**
      * 各个状态的订单数量统计
      * @return
      */
     @Override
     public OrderStatisticsVO statistics() {
-        // 根据状态，分别查询出待接单、待派送、派送中的订单数量
-        Integer toBeConfirmed = orderMapper.countStatus(Orders.TO_BE_CONFIRMED);
-        Integer confirmed = orderMapper.countStatus(Orders.CONFIRMED);
-        Integer deliveryInProgress = orderMapper.countStatus(Orders.DELIVERY_IN_PROGRESS);
+        // 待接单、待派送、派送中的订单数量，读取状态计数，不查询数据库
+        Integer toBeConfirmed = orderStatusCounter.getTotal(Orders.TO_BE_CONFIRMED);
+        Integer confirmed = orderStatusCounter.getTotal(Orders.CONFIRMED);
+        Integer deliveryInProgress = orderStatusCounter.getTotal(Orders.DELIVERY_IN_PROGRESS);
         // 封装成OrderStatisticsVO并返回
         OrderStatisticsVO orderStatisticsVO=new OrderStatisticsVO();
         orderStatisticsVO.setToBeConfirmed(toBeConfirmed);
@@ -557,86 +725,86 @@ public class OrderServiceImpl implements OrderService {
         return orderStatisticsVO;
     }
 
+    /**
+     * 按目录快照校验购物车商品是否在售，并以当前的名称、图片、价格生成订单明细
+     * 商品价格自加入购物车后有变化时，按差额调整订单金额（打包费、配送费仍以前端计算为准）
+     * @param shoppingCartList
+     * @param orders
+     * @return
+     */
+    private List<OrderDetail> priceOrderDetails(List<ShoppingCart> shoppingCartList, Orders orders) {
+        CatalogSnapshot catalog = catalogHolder.get();
+        BigDecimal difference = BigDecimal.ZERO;
+        List<OrderDetail> orderDetailList = new ArrayList<>(shoppingCartList.size());
+        for (ShoppingCart cart : shoppingCartList) {
+            CatalogItem item = catalog.getOnSale(cart.getDishId(), cart.getSetmealId());
+            if (item == null) {
+                throw new OrderBusinessException(MessageConstant.ITEM_NOT_ON_SALE + "：" + cart.getName());
+            }
+            OrderDetail orderDetail = new OrderDetail();//订单明细
+            BeanUtils.copyProperties(cart, orderDetail);
+            orderDetail.setName(item.getName());
+            orderDetail.setImage(item.getImage());
+            orderDetail.setAmount(item.getPrice());
+            if (cart.getAmount() != null && cart.getAmount().compareTo(item.getPrice()) != 0) {
+                difference = difference.add(item.getPrice().subtract(cart.getAmount())
+                        .multiply(BigDecimal.valueOf(cart.getNumber())));
+            }
+            orderDetailList.add(orderDetail);
+        }
+        if (difference.signum() != 0 && orders.getAmount() != null) {
+            log.info("购物车商品价格已变化，订单金额调整：{}", difference);
+            orders.setAmount(orders.getAmount().add(difference));
+        }
+        return orderDetailList;
+    }
+
     /**
      * 判断当前地址是否超出配送范围
      * @param address
      */
     private void checkOutOfRange(String address){
-        log.info("开始检查配送范围，店铺地址: {}, 用户地址: {}", shopAddress, address);
-        Map map=new HashMap<>();
-        map.put("address",shopAddress);
-        map.put("output","json");
-        map.put("ak",ak);
-        log.info("请求百度地图API参数: address={}, ak={}", shopAddress, ak);
-        //获取店铺的经纬度坐标
-        String shopCoordinate = HttpClientUtil.doGet("https://api.map.baidu.com/geocoding/v3", map);
-        log.info("店铺地址解析结果: {}", shopCoordinate);
-
-        JSONObject jsonObject = JSON.parseObject(shopCoordinate);
-        if(!jsonObject.getString("status").equals("0")){
-            log.error("店铺地址解析失败，状态码: {}，错误信息: {}", jsonObject.getString("status"), jsonObject.getString("message"));
-            throw new OrderBusinessException(MessageConstant.PARSE_ADDRESS_ERROR_SHOP);
-        }
-        //数据解析
-        JSONObject location = jsonObject.getJSONObject("result").getJSONObject("location");
-        //店铺的坐标 (纬度,经度)
-        String shopLngLat = location.getString("lat")+","+location.getString("lng");
-        log.info("店铺坐标: {}", shopLngLat);
-        map.put("address",address);
-        //获取用户地址的经纬度坐标
-        String userCoordinate = HttpClientUtil.doGet("https://api.map.baidu.com/geocoding/v3", map);
-        log.info("用户地址解析结果: {}", userCoordinate);
-        jsonObject=JSON.parseObject(userCoordinate);
-        if(!jsonObject.getString("status").equals("0")){
-            log.error("用户地址解析失败，状态码: {}，错误信息: {}", jsonObject.getString("status"), jsonObject.getString("message"));
-            throw new OrderBusinessException(MessageConstant.PARSE_ADDRESS_ERROR_USER);
-        }
-        //数据解析
-        location = jsonObject.getJSONObject("result").getJSONObject("location");
-        //用户的坐标 (纬度,经度)
-        String userLngLat = location.getString("lat")+","+location.getString("lng");
-        log.info("用户坐标: {}", userLngLat);
-
-        //构建请求参数
-        map.put("origin",shopLngLat);
-        map.put("destination",userLngLat);
-        map.put("steps_info","0");
-
-        //路线规划
-        String driving = HttpClientUtil.doGet("https://api.map.baidu.com/directionlite/v1/driving", map);
-        log.info("路线规划结果: {}", driving);
-        jsonObject=JSON.parseObject(driving);
-        if(!jsonObject.getString("status").equals("0")){
-            log.error("路线规划失败，状态码: {}，错误信息: {}", jsonObject.getString("status"), jsonObject.getString("message"));
-            throw new OrderBusinessException(MessageConstant.ROUTE_PLANNING_FAILED);
-        }
-        //数据解析
-        JSONObject result = jsonObject.getJSONObject("result");
-        JSONArray jsonArray = (JSONArray) result.get("routes");
-        Integer distance = (Integer) ((JSONObject) jsonArray.get(0)).get("distance");
+        log.info("开始检查配送范围，用户地址: {}", address);
+        //店铺坐标在启动时已解析，用户坐标和路线距离优先从缓存中获取，需要远程解析时两者并行
+        CompletableFuture<GeoLocation> shopFuture = geoCache.getShopLocationAsync();
+        CompletableFuture<GeoLocation> userFuture = geoCache.getUserLocationAsync(address);
+        GeoLocation shopLocation = GeoCache.join(shopFuture);
+        GeoLocation userLocation = GeoCache.join(userFuture);
+        //先按直线距离在本地判断，明显在范围内或明显超出范围的地址不再调用路线规划
+        DeliveryZone.Verdict verdict = deliveryZone.evaluate(shopLocation, userLocation);
+        if (verdict == DeliveryZone.Verdict.INSIDE) {
+            return;
+        }
+        if (verdict == DeliveryZone.Verdict.OUTSIDE) {
+            throw new OrderBusinessException(MessageConstant.OUT_OF_DELIVERY_RANGE);
+        }
+        Integer distance = geoCache.getDrivingDistance(shopLocation, userLocation);
         log.info("配送距离: {}米", distance);
         //判断配送范围是否超出
-        if(distance > 5000){
+        if(distance > deliveryZone.getRadius()){
             throw new OrderBusinessException(MessageConstant.OUT_OF_DELIVERY_RANGE);
         }
     }
 
     /**
      * 获取订单菜品信息
-     * @param page
+     * @param ordersList
      * @return
      */
-    private List<OrderVO> getOrderVOList(Page<Orders> page){
+    private List<OrderVO> getOrderVOList(List<Orders> ordersList){
         //需要返回订单菜品信息，自定义OrderVO响应结果
         List<OrderVO> orderVOList = new ArrayList<>();
 
-        List<Orders> ordersList = page.getResult();
         if(!CollectionUtils.isEmpty(ordersList)){
+            //一次查询出本页所有订单的明细，按订单id分组
+            Map<Long, List<OrderDetail>> orderDetailMap = orderDetailMapper.getByOrderIds(
+                            ordersList.stream().map(Orders::getId).toList()).stream()
+                    .collect(Collectors.groupingBy(OrderDetail::getOrderId));
             for (Orders orders : ordersList) {
                 // 将共同字段复制到OrderVO
                 OrderVO orderVO = new OrderVO();
                 BeanUtils.copyProperties(orders,orderVO);
-                String orderDishes = getOrderDishesStr(orders);
+                String orderDishes = getOrderDishesStr(orderDetailMap.getOrDefault(orders.getId(), new ArrayList<>()));
 
                 //将订单菜品信息封装到OrderVO中，并且添加到orderVOList
                 orderVO.setOrderDishes(orderDishes);
@@ -646,13 +814,11 @@ public class OrderServiceImpl implements OrderService {
         return orderVOList;
     }
     /**
-     * 根据订单id获取菜品信息字符串
-     * @param orders
+     * 根据订单明细获取菜品信息字符串
+     * @param orderDetailList 订单中的菜品和数量
      * @return
      */
-    private String getOrderDishesStr(Orders orders) {
-        //查询订单菜品详情信息（订单中的菜品和数量）
-        List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderId(orders.getId());
+    private String getOrderDishesStr(List<OrderDetail> orderDetailList) {
         //将每一条订单菜品信息拼接为字符串（格式：宫保鸡丁*2;）
         List<String> orderDishList = orderDetailList.stream().map(orderDetail -> orderDetail.getDishFlavor() + "*" + orderDetail.getNumber() + ";")
                 .toList();
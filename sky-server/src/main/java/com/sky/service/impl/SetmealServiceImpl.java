@@ -1,7 +1,8 @@
 package com.sky.service.impl;
 
 import com.github.pagehelper.Page;
-import com.github.pagehelper.PageHelper;
+import com.sky.cache.PageCountCache;
+import com.sky.catalog.CatalogChangeEvent;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.StatusConstant;
 import com.sky.dto.SetmealDTO;
@@ -21,14 +22,17 @@ import com.sky.vo.DishItemVO;
 import com.sky.vo.SetmealVO;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class SetmealServiceImpl implements SetmealService {
@@ -41,13 +45,16 @@ public class SetmealServiceImpl implements SetmealService {
     private DishMapper dishMapper;
     @Autowired
     private AliOssUtil aliOssUtil;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private PageCountCache pageCountCache;
 
     /**
      * 新增套餐，同时增加套餐和菜品关系
      * @param setmealDTO
      */
     @Transactional
-    @CacheEvict(value = "setmealCache", key = "#setmealDTO.categoryId")
     @Override
     public void saveWithDish(SetmealDTO setmealDTO) {
         Setmeal setmeal = new Setmeal();
@@ -62,6 +69,8 @@ public class SetmealServiceImpl implements SetmealService {
         //保存套餐和菜品的关系
         setMealDishMapper.insertBatch(setmealDishes);
 
+        eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.SETMEAL, List.of(mealId),
+                null, List.of(setmealDTO.getCategoryId())));
     }
 
     /**
@@ -71,8 +80,9 @@ public class SetmealServiceImpl implements SetmealService {
      */
     @Override
     public PageResult pageQuery(SetmealPageQueryDTO setmealPageQueryDTO) {
-        PageHelper.startPage(setmealPageQueryDTO.getPage(),setmealPageQueryDTO.getPageSize());
-        Page<SetmealVO> page=setmealMapper.pageQuery(setmealPageQueryDTO);
+        Page<SetmealVO> page = pageCountCache.page(SetmealMapper.class, setmealPageQueryDTO,
+                setmealPageQueryDTO.getPage(), setmealPageQueryDTO.getPageSize(),
+                () -> setmealMapper.pageQuery(setmealPageQueryDTO));
         return new PageResult(page.getTotal(),page.getResult());
     }
 
@@ -81,15 +91,17 @@ public class SetmealServiceImpl implements SetmealService {
      * @param ids
      */
     @Transactional
-    @CacheEvict(value = "setmealCache", allEntries = true)
     @Override
     public void deleteBatch(List<Long> ids) {
+        //被删除套餐所在的分类
+        Set<Long> categoryIds = new HashSet<>();
         ids.forEach(id->{
             Setmeal setmeal = setmealMapper.getById(id);
             // 检查套餐是否存在
             if (setmeal == null) {
                 throw new DeletionNotAllowedException(MessageConstant.SETMEAL_ON_SALE);
             }
+            categoryIds.add(setmeal.getCategoryId());
             if(StatusConstant.ENABLE==setmeal.getStatus()){
                 //起售中的套餐不能被删除
                 throw new DeletionNotAllowedException(MessageConstant.SETMEAL_ON_SALE);
@@ -115,6 +127,8 @@ public class SetmealServiceImpl implements SetmealService {
             //删除套餐关系表中的数据
             setMealDishMapper.deleteBySetmealId(setmealId);
         });
+
+        eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.SETMEAL, ids, null, categoryIds));
     }
 
     /**
@@ -138,7 +152,6 @@ public class SetmealServiceImpl implements SetmealService {
      * @param setmealDTO
      */
     @Transactional
-    @CacheEvict(value = "setmealCache", allEntries = true)
     @Override
     public void update(SetmealDTO setmealDTO) {
         // 先获取原始套餐信息
@@ -176,6 +189,15 @@ public class SetmealServiceImpl implements SetmealService {
 
         //3.重新插入套餐和菜品的关联关系，操作setmeal_dish表，执行insert
         setMealDishMapper.insertBatch(setmealDishes);
+
+        //套餐可能换了分类，新旧分类的缓存都需要失效
+        List<Long> categoryIds = new ArrayList<>();
+        categoryIds.add(setmealDTO.getCategoryId());
+        if (originalSetmeal != null) {
+            categoryIds.add(originalSetmeal.getCategoryId());
+        }
+        eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.SETMEAL, List.of(setmealId),
+                null, categoryIds));
     }
 
     /**
@@ -184,7 +206,6 @@ public class SetmealServiceImpl implements SetmealService {
      * @param id
      */
     @Override
-    @CacheEvict(value = "setmealCache", allEntries = true)
     public void startOrStop(Integer status, Long id) {
         //起售套餐时，判断套餐内是否有停售菜品，有停售菜品提示"套餐内包含未起售菜品，无法起售"
         if(status==StatusConstant.ENABLE){
@@ -203,6 +224,10 @@ public class SetmealServiceImpl implements SetmealService {
                 .status(status)
                 .build();
         setmealMapper.update(setmeal);
+
+        Setmeal current = setmealMapper.getById(id);
+        eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.SETMEAL, List.of(id),
+                null, current == null ? null : List.of(current.getCategoryId())));
     }
 
     /**
@@ -211,7 +236,7 @@ public class SetmealServiceImpl implements SetmealService {
      * @return
      */
     @Override
-    @Cacheable(value = "setmealCache", key = "#setmeal.categoryId")
+    @Cacheable(value = "setmealCache", key = "#setmeal.categoryId", sync = true)
     public List<Setmeal> list(Setmeal setmeal) {
         List<Setmeal> list = setmealMapper.list(setmeal);
         return list;
@@ -1,68 +1,65 @@
 package com.sky.service.impl;
 
+import com.sky.cart.CartStore;
+import com.sky.catalog.CatalogHolder;
+import com.sky.catalog.CatalogItem;
+import com.sky.constant.MessageConstant;
 import com.sky.context.BaseContext;
 import com.sky.dto.ShoppingCartDTO;
-import com.sky.entity.Dish;
-import com.sky.entity.Setmeal;
+import com.sky.dto.ShoppingCartDeltaDTO;
 import com.sky.entity.ShoppingCart;
-import com.sky.mapper.DishMapper;
-import com.sky.mapper.SetmealMapper;
-import com.sky.mapper.ShoppingCartMapper;
+import com.sky.exception.ShoppingCartBusinessException;
 import com.sky.service.ShoppingCartService;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ShoppingCartServiceImpl implements ShoppingCartService {
+
+    //批量修改一次最多提交的变更条数，避免单个请求在一个事务中处理任意多的商品
+    private static final int MAX_BATCH_SIZE = 50;
+
     @Autowired
-    private ShoppingCartMapper shoppingCartMapper;
-    @Autowired
-    private DishMapper dishMapper;
+    private CartStore cartStore;
     @Autowired
-    private SetmealMapper setmealMapper;
+    private CatalogHolder catalogHolder;
     /**
      * 添加购物车
      * @param shoppingCartDTO
      */
     @Override
     public void addShoppingCart(ShoppingCartDTO shoppingCartDTO) {
-        //判断当前购物车中的商品是否在已经存在
         ShoppingCart shoppingCart=new ShoppingCart();
         BeanUtils.copyProperties(shoppingCartDTO,shoppingCart);
-        //设置查询条件，查询当前登录用户的购物车数据
+        //不存在或已停售的商品在访问购物车存储之前拒绝
+        if (catalogHolder.getOnSale(shoppingCart.getDishId(), shoppingCart.getSetmealId()) == null) {
+            throw new ShoppingCartBusinessException(MessageConstant.ITEM_NOT_ON_SALE);
+        }
+        //设置当前登录用户
         shoppingCart.setUserId(BaseContext.getCurrentId());
-        List<ShoppingCart> shoppingCartList = shoppingCartMapper.list(shoppingCart);
-        //如果已经存在，只需要将数量加一
-        if(shoppingCartList!=null&&shoppingCartList.size()>0){
-            shoppingCart = shoppingCartList.get(0);
-            shoppingCart.setNumber(shoppingCart.getNumber()+1);
-            shoppingCartMapper.updateNumberById(shoppingCart);
-        }else{
-            //如果不存在，需要插入一条购物车数据
-            //判断本次添加到购物车的是菜品还是套餐
-            Long dishId = shoppingCartDTO.getDishId();
-            if(dishId!=null){
-                //本次添加到购物车的是菜品
-                Dish dish = dishMapper.getById(dishId);
-                shoppingCart.setName(dish.getName());
-                shoppingCart.setImage(dish.getImage());
-                shoppingCart.setAmount(dish.getPrice());
-            } else {
-                //本次添加到购物车的是套餐
-                Long setmealId=shoppingCartDTO.getSetmealId();
-                Setmeal setmeal = setmealMapper.getById(setmealId);
-                shoppingCart.setName(setmeal.getName());
-                shoppingCart.setImage(setmeal.getImage());
-                shoppingCart.setAmount(setmeal.getPrice());
-            }
-            shoppingCart.setNumber(1);
-            shoppingCart.setCreateTime(LocalDateTime.now());
-            shoppingCartMapper.insert(shoppingCart);
+        //已存在则数量加一，不存在时补全商品信息后新增
+        cartStore.add(shoppingCart, this::fillItem);
+    }
+
+    /**
+     * 从目录快照补全购物车商品的名称、图片、金额
+     * @param shoppingCart
+     */
+    private void fillItem(ShoppingCart shoppingCart) {
+        //菜品id不为空时为菜品，否则为套餐
+        CatalogItem item = catalogHolder.getOnSale(shoppingCart.getDishId(), shoppingCart.getSetmealId());
+        if (item == null) {
+            throw new ShoppingCartBusinessException(MessageConstant.ITEM_NOT_ON_SALE);
         }
+        shoppingCart.setName(item.getName());
+        shoppingCart.setImage(item.getImage());
+        shoppingCart.setAmount(item.getPrice());
     }
 
     /**
@@ -71,9 +68,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
      */
     @Override
     public List<ShoppingCart> showShoppingCart() {
-        return shoppingCartMapper.list(ShoppingCart.builder()
-                .userId(BaseContext.getCurrentId())
-                .build());
+        return cartStore.list(BaseContext.getCurrentId());
     }
 
     /**
@@ -81,7 +76,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
      */
     @Override
     public void cleanShoppingCart() {
-        shoppingCartMapper.deleteByUserId(BaseContext.getCurrentId());
+        cartStore.clear(BaseContext.getCurrentId());
     }
 
     /**
@@ -92,22 +87,47 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
     public void subShoppingCart(ShoppingCartDTO shoppingCartDTO) {
         ShoppingCart shoppingCart=new ShoppingCart();
         BeanUtils.copyProperties(shoppingCartDTO,shoppingCart);
-        //设置查询条件，查询当前登录用户的购物车数据
+        //设置当前登录用户
         shoppingCart.setUserId(BaseContext.getCurrentId());
+        //份数减一，减到0时删除
+        cartStore.sub(shoppingCart);
+    }
 
-        List<ShoppingCart> list = shoppingCartMapper.list(shoppingCart);
-        if(list!=null&&list.size()>0){
-            shoppingCart = list.get(0);
-
-            if(shoppingCart.getNumber()==1){
-                //当前商品在购物车中的份数为1，，直接删除当前记录
-                shoppingCartMapper.deleteById(shoppingCart.getId());
-            }else{
-                //当前商品在购物车中的份数>1，修改份数
-                shoppingCart.setNumber(shoppingCart.getNumber()-1);
-                shoppingCartMapper.updateNumberById(shoppingCart);
+    /**
+     * 批量修改购物车商品数量，最多MAX_BATCH_SIZE条
+     * @param deltas
+     */
+    @Override
+    public void batchUpdateShoppingCart(List<ShoppingCartDeltaDTO> deltas) {
+        if (deltas.size() > MAX_BATCH_SIZE) {
+            throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_BATCH_TOO_LARGE);
+        }
+        //同一商品的多次变化先合并
+        Map<String, ShoppingCart> merged = new LinkedHashMap<>();
+        for (ShoppingCartDeltaDTO delta : deltas) {
+            if (delta.getNumber() == null || (delta.getDishId() == null) == (delta.getSetmealId() == null)) {
+                throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_ITEM_INVALID);
             }
+            String key = delta.getDishId() + ":" + delta.getSetmealId() + ":" + delta.getDishFlavor();
+            ShoppingCart shoppingCart = merged.get(key);
+            if (shoppingCart == null) {
+                shoppingCart = new ShoppingCart();
+                BeanUtils.copyProperties(delta, shoppingCart);
+                merged.put(key, shoppingCart);
+            } else {
+                shoppingCart.setNumber(shoppingCart.getNumber() + delta.getNumber());
+            }
+        }
+        List<ShoppingCart> list = new ArrayList<>();
+        for (ShoppingCart shoppingCart : merged.values()) {
+            if (shoppingCart.getNumber() != 0) {
+                list.add(shoppingCart);
+            }
+        }
+        if (list.isEmpty()) {
+            return;
         }
+        cartStore.applyBatch(BaseContext.getCurrentId(), list, this::fillItem);
     }
 
-}
\ No newline at end of file
+}
@@ -14,6 +14,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
@@ -71,7 +72,14 @@ public class UserServiceImpl implements UserService {
         map.put("secret",weChatProperties.getSecret());
         map.put("js_code",code);
         map.put("grant_type","authorization_code");
-        String json = HttpClientUtil.doGet(WX_LOGIN, map);
+        String json;
+        try {
+            json = HttpClientUtil.doGet(WX_LOGIN, map);
+        } catch (UncheckedIOException e) {
+            //请求失败按登录失败处理
+            log.error("调用微信登录接口失败：{}", e.getMessage());
+            return null;
+        }
 
         JSONObject jsonObject = JSON.parseObject(json);
         String openid = jsonObject.getString("openid");
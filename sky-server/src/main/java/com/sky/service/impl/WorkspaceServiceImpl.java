@@ -6,6 +6,7 @@ import com.sky.mapper.DishMapper;
 import com.sky.mapper.OrderMapper;
 import com.sky.mapper.SetmealMapper;
 import com.sky.mapper.UserMapper;
+import com.sky.order.OrderStatusCounter;
 import com.sky.service.WorkspaceService;
 import com.sky.vo.BusinessDataVO;
 import com.sky.vo.DishOverViewVO;
@@ -29,6 +30,8 @@ public class WorkspaceServiceImpl implements WorkspaceService {
     private DishMapper dishMapper;
     @Autowired
     private SetmealMapper setmealMapper;
+    @Autowired
+    private OrderStatusCounter orderStatusCounter;
 
     /**
      * 根据时间段统计营业数据
@@ -84,29 +87,13 @@ public class WorkspaceServiceImpl implements WorkspaceService {
      */
     @Override
     public OrderOverViewVO getOrderOverView() {
-        Map map=new HashMap<>();
-        map.put("status", Orders.TO_BE_CONFIRMED);
-        map.put("begin", LocalDateTime.now().with(LocalDateTime.MIN));
-
-        //待接单
-        Integer waitOrders = orderMapper.countByMap(map);
-        //待派单
-        map.put("status", Orders.CONFIRMED);
-        Integer toBeConfirmed = orderMapper.countByMap(map);
-        //已完成
-        map.put("status", Orders.COMPLETED);
-        Integer deliveredOrders = orderMapper.countByMap(map);
-        //已取消
-        map.put("status", Orders.CANCELLED);
-        Integer cancelledOrders = orderMapper.countByMap(map);
-        //全部订单
-        map.put("status", null);
-        Integer allOrders = orderMapper.countByMap(map);
+        //当天下单的订单，读取状态计数，不查询数据库
         return OrderOverViewVO.builder()
-                .waitingOrders(waitOrders)
-                .deliveredOrders(deliveredOrders)
-                .cancelledOrders(cancelledOrders)
-                .allOrders(allOrders)
+                .waitingOrders(orderStatusCounter.getToday(Orders.TO_BE_CONFIRMED))
+                .deliveredOrders(orderStatusCounter.getToday(Orders.CONFIRMED))
+                .completedOrders(orderStatusCounter.getToday(Orders.COMPLETED))
+                .cancelledOrders(orderStatusCounter.getToday(Orders.CANCELLED))
+                .allOrders(orderStatusCounter.getTodayAll())
                 .build();
     }
 
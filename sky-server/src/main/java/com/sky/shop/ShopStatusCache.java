@@ -0,0 +1,99 @@
+package com.sky.shop;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 店铺营业状态的本地缓存
+ * 状态仍保存在Redis的SHOP_STATUS中；修改后通过Redis频道通知所有节点更新本地值，并定时与Redis对账，
+ * 读取只访问本地变量。Redis暂时不可用时保留最后一次读到的状态
+ */
+@Component
+@Slf4j
+public class ShopStatusCache implements MessageListener {
+
+    public static final String KEY = "SHOP_STATUS";
+
+    //营业状态变更通知的频道
+    public static final String CHANNEL = "sky:shop:status";
+
+    //营业状态：1营业中 0打烊中
+    public static final Integer OPEN = 1;
+    public static final Integer CLOSED = 0;
+
+    @Autowired
+    private RedisTemplate redisTemplate;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    //为null表示还没有从Redis读到过
+    private volatile Integer status;
+
+    @PostConstruct
+    public void init() {
+        reconcile();
+    }
+
+    /**
+     * 当前营业状态，不访问Redis；从未设置过或启动以来一直读取失败时为打烊
+     * @return
+     */
+    public Integer getStatus() {
+        Integer current = status;
+        return current == null ? CLOSED : current;
+    }
+
+    /**
+     * 修改营业状态：写入Redis后更新本地值，并通知其他节点
+     * @param status
+     */
+    public void setStatus(Integer status) {
+        redisTemplate.opsForValue().set(KEY, status);
+        this.status = status;
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, String.valueOf(status));
+        } catch (RuntimeException e) {
+            //其他节点在下一次对账时更新
+            log.warn("发送店铺营业状态变更通知失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定时从Redis读取营业状态，补上丢失的通知
+     */
+    @Scheduled(fixedRate = 30000, initialDelay = 30000)
+    public void reconcile() {
+        try {
+            Integer latest = (Integer) redisTemplate.opsForValue().get(KEY);
+            if (latest != null && !latest.equals(status)) {
+                log.info("店铺营业状态已更新为：{}", OPEN.equals(latest) ? "营业中" : "打烊中");
+            }
+            if (latest != null) {
+                status = latest;
+            }
+        } catch (RuntimeException e) {
+            log.warn("读取店铺营业状态失败，继续使用本地状态：{}，{}", status, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            status = Integer.valueOf(body);
+        } catch (NumberFormatException e) {
+            log.warn("无法解析店铺营业状态通知：{}", body);
+            return;
+        }
+        log.info("收到店铺营业状态变更通知：{}", OPEN.equals(status) ? "营业中" : "打烊中");
+    }
+}
@@ -3,6 +3,7 @@ package com.sky.task;
 import com.sky.constant.MessageConstant;
 import com.sky.entity.Orders;
 import com.sky.mapper.OrderMapper;
+import com.sky.order.OrderStatusCounter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -21,6 +22,8 @@ public class OrderTask {
 
     @Autowired
     private OrderMapper orderMapper;
+    @Autowired
+    private OrderStatusCounter orderStatusCounter;
 
     /**
      * 处理支付超时订单
@@ -36,7 +39,10 @@ public class OrderTask {
                 order.setStatus(Orders.CANCELLED);
                 order.setCancelReason(MessageConstant.PAYMENT_TIMEOUT);
                 order.setCancelTime(LocalDateTime.now());
-                orderMapper.update(order);
+                //期间已支付或被用户取消的订单不再修改
+                if (orderMapper.updateByStatus(order, Orders.PENDING_PAYMENT) == 1) {
+                    orderStatusCounter.transition(Orders.PENDING_PAYMENT, Orders.CANCELLED, order.getOrderTime());
+                }
             });
         }
     }
@@ -53,7 +59,9 @@ public class OrderTask {
         if(ordersList != null && !ordersList.isEmpty()){
             ordersList.forEach(order ->{
                 order.setStatus(Orders.COMPLETED);
-                orderMapper.update(order);
+                if (orderMapper.updateByStatus(order, Orders.DELIVERY_IN_PROGRESS) == 1) {
+                    orderStatusCounter.transition(Orders.DELIVERY_IN_PROGRESS, Orders.COMPLETED, order.getOrderTime());
+                }
             });
         }
     }
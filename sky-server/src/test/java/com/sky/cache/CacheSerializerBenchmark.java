@@ -0,0 +1,72 @@
+package com.sky.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存值序列化对比：JDK / Smile / Smile+Deflate，缓存值为一个分类的菜品列表（40个菜品，含口味）
+ * 编码后的字节数在Setup中打印。不随mvn test执行，运行方式：
+ * mvn -pl sky-server test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/cp.txt
+ * java -cp sky-server/target/test-classes:sky-server/target/classes:$(cat sky-server/target/cp.txt) com.sky.cache.CacheSerializerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializerBenchmark {
+
+    @Param({"jdk", "smile", "smile-deflate"})
+    private String format;
+
+    private RedisSerializer<Object> serializer;
+
+    private Object value;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        serializer = switch (format) {
+            case "jdk" -> new JdkSerializationRedisSerializer(getClass().getClassLoader());
+            case "smile" -> new CompressingRedisSerializer(new SmileRedisSerializer(), 0);
+            default -> new CompressingRedisSerializer(new SmileRedisSerializer(), 4096);
+        };
+        value = CacheValueFixtures.dishVOList(40);
+        bytes = serializer.serialize(value);
+        System.out.println(format + " 编码后字节数：" + bytes.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CacheSerializerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,48 @@
+package com.sky.cache;
+
+import com.sky.entity.DishFlavor;
+import com.sky.vo.DishVO;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 缓存值样例：与dishCache中一个分类的缓存值结构相同
+ */
+final class CacheValueFixtures {
+
+    private CacheValueFixtures() {
+    }
+
+    /**
+     * 一个分类下的菜品列表，每个菜品带两种口味，图片地址各不相同
+     * @param size 菜品数量
+     * @return
+     */
+    static List<DishVO> dishVOList(int size) {
+        LocalDateTime updateTime = LocalDateTime.of(2024, 5, 1, 12, 30, 15);
+        List<DishVO> list = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            List<DishFlavor> flavors = new ArrayList<>();
+            flavors.add(DishFlavor.builder().id(id * 10).dishId(id).name("辣度")
+                    .value("[\"不辣\",\"微辣\",\"中辣\",\"重辣\"]").build());
+            flavors.add(DishFlavor.builder().id(id * 10 + 1).dishId(id).name("忌口")
+                    .value("[\"不要葱\",\"不要蒜\",\"不要香菜\",\"不要辣\"]").build());
+            list.add(DishVO.builder()
+                    .id(id)
+                    .name("菜品" + id)
+                    .categoryId(16L)
+                    .price(new BigDecimal("38.00").add(BigDecimal.valueOf(id)))
+                    .image("https://sky-take-out.oss-cn-beijing.aliyuncs.com/" + id + "-c2a4f1b7-6a8e-4b0f-9d3e-2f6b1c9d7e41.png")
+                    .description("精选食材，现点现做，口味正宗")
+                    .status(1)
+                    .updateTime(updateTime.plusMinutes(id))
+                    .categoryName("川湘菜")
+                    .flavors(flavors)
+                    .build());
+        }
+        return list;
+    }
+}
@@ -0,0 +1,102 @@
+package com.sky.cache;
+
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.DishFlavor;
+import com.sky.entity.Setmeal;
+import com.sky.entity.SetmealDish;
+import com.sky.vo.DishVO;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SmileRedisSerializerTest {
+
+    //与sky.cache.compress-threshold的默认值相同
+    private static final long COMPRESS_THRESHOLD = 4096;
+
+    private final SmileRedisSerializer smile = new SmileRedisSerializer();
+
+    @Test
+    void dishVOListRoundTripsSmallerThanJdk() {
+        List<DishVO> value = CacheValueFixtures.dishVOList(40);
+        RedisSerializer<Object> jdk = new JdkSerializationRedisSerializer(getClass().getClassLoader());
+        RedisSerializer<Object> plain = new CompressingRedisSerializer(smile, 0);
+        RedisSerializer<Object> compressed = new CompressingRedisSerializer(smile, COMPRESS_THRESHOLD);
+
+        byte[] jdkBytes = jdk.serialize(value);
+        byte[] plainBytes = plain.serialize(value);
+        byte[] compressedBytes = compressed.serialize(value);
+
+        assertEquals(value, jdk.deserialize(jdkBytes));
+        assertEquals(value, plain.deserialize(plainBytes));
+        assertEquals(value, compressed.deserialize(compressedBytes));
+        assertTrue(plainBytes.length < jdkBytes.length,
+                "smile " + plainBytes.length + " bytes, jdk " + jdkBytes.length + " bytes");
+        assertTrue(compressedBytes.length < plainBytes.length / 2,
+                "compressed " + compressedBytes.length + " bytes, smile " + plainBytes.length + " bytes");
+    }
+
+    @Test
+    void smallValuesAreNotCompressed() {
+        RedisSerializer<Object> compressed = new CompressingRedisSerializer(smile, COMPRESS_THRESHOLD);
+        List<DishVO> value = CacheValueFixtures.dishVOList(1);
+
+        byte[] bytes = compressed.serialize(value);
+
+        assertEquals(0, bytes[0]);
+        assertEquals(value, compressed.deserialize(bytes));
+    }
+
+    @Test
+    void allowListedTypesRoundTrip() {
+        LocalDateTime time = LocalDateTime.of(2024, 5, 1, 12, 30, 15);
+        Map<String, Object> map = new HashMap<>();
+        map.put("count", 3L);
+        map.put("amount", new BigDecimal("12.50"));
+        map.put("name", "川湘菜");
+        //dishCache、setmealCache及MyBatis二级缓存中保存的值
+        List<Object> values = List.of(
+                CacheValueFixtures.dishVOList(3),
+                new ArrayList<>(List.of(Dish.builder().id(1L).name("宫保鸡丁").price(new BigDecimal("32.00"))
+                        .status(1).createTime(time).updateTime(time).build())),
+                new ArrayList<>(List.of(Category.builder().id(1L).type(1).name("川湘菜").sort(1).status(1)
+                        .createTime(time).build())),
+                new ArrayList<>(List.of(Setmeal.builder().id(1L).categoryId(13L).name("商务套餐A")
+                        .price(new BigDecimal("88.00")).status(1).build())),
+                new ArrayList<>(List.of(SetmealDish.builder().id(1L).setmealId(1L).dishId(2L).name("米饭")
+                        .price(new BigDecimal("2.00")).copies(1).build())),
+                new ArrayList<>(List.of(DishFlavor.builder().id(1L).dishId(1L).name("辣度").value("[\"微辣\"]").build())),
+                new ArrayList<>(List.of(5L, 7)),
+                new ArrayList<>(),
+                map,
+                42L,
+                new BigDecimal("0.10"),
+                time);
+
+        for (Object value : values) {
+            assertEquals(value, smile.deserialize(smile.serialize(value)), value.getClass().getName());
+        }
+    }
+
+    @Test
+    void typeOutsideAllowListFailsOnWrite() {
+        URI uri = URI.create("https://example.com");
+
+        assertThrows(SerializationException.class, () -> smile.serialize(uri));
+        assertThrows(SerializationException.class, () -> smile.serialize(new ArrayList<>(List.of(uri))));
+    }
+}
@@ -0,0 +1,73 @@
+package com.sky.service.impl;
+
+import com.sky.entity.Dish;
+import com.sky.entity.DishFlavor;
+import com.sky.mapper.DishFlavorMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.vo.DishVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DishServiceImplTest {
+
+    private static final int DISH_COUNT = 20;
+
+    @Mock
+    private DishMapper dishMapper;
+    @Mock
+    private DishFlavorMapper dishFlavorMapper;
+
+    @InjectMocks
+    private DishServiceImpl dishService;
+
+    @Test
+    void listWithFlavorQueriesFlavorsOnce() {
+        List<Dish> dishList = new ArrayList<>();
+        List<DishFlavor> flavorList = new ArrayList<>();
+        for (long id = 1; id <= DISH_COUNT; id++) {
+            dishList.add(Dish.builder().id(id).categoryId(1L).build());
+            flavorList.add(DishFlavor.builder().dishId(id).name("辣度").build());
+            flavorList.add(DishFlavor.builder().dishId(id).name("忌口").build());
+        }
+        when(dishMapper.list(any())).thenReturn(dishList);
+        when(dishFlavorMapper.getByDishIds(anyList())).thenReturn(flavorList);
+
+        List<DishVO> dishVOList = dishService.listWithFlavor(Dish.builder().categoryId(1L).build());
+
+        verify(dishFlavorMapper, times(1)).getByDishIds(anyList());
+        verify(dishFlavorMapper, never()).getByDishId(anyLong());
+        assertEquals(DISH_COUNT, dishVOList.size());
+        dishVOList.forEach(dishVO -> {
+            assertEquals(2, dishVO.getFlavors().size());
+            dishVO.getFlavors().forEach(flavor -> assertEquals(dishVO.getId(), flavor.getDishId()));
+        });
+    }
+
+    @Test
+    void emptyCategoryIssuesNoFlavorQuery() {
+        when(dishMapper.list(any())).thenReturn(new ArrayList<>());
+
+        List<DishVO> dishVOList = dishService.listWithFlavor(Dish.builder().categoryId(1L).build());
+
+        assertTrue(dishVOList.isEmpty());
+        verify(dishFlavorMapper, never()).getByDishIds(anyList());
+        verify(dishFlavorMapper, never()).getByDishId(anyLong());
+    }
+}
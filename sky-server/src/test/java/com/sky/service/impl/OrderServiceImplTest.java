@@ -0,0 +1,107 @@
+package com.sky.service.impl;
+
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageHelper;
+import com.sky.cache.PageCountCache;
+import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.properties.PageCountProperties;
+import com.sky.result.CursorPageResult;
+import com.sky.result.PageResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceImplTest {
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @InjectMocks
+    private OrderServiceImpl orderService;
+
+    @BeforeEach
+    void setUp() {
+        PageCountProperties pageCountProperties = new PageCountProperties();
+        pageCountProperties.setEstimateOrderTotal(true);
+        ReflectionTestUtils.setField(orderService, "pageCountCache", new PageCountCache(pageCountProperties));
+        ReflectionTestUtils.setField(orderService, "pageCountProperties", pageCountProperties);
+        ReflectionTestUtils.setField(orderService, "searchMode", "indexed");
+    }
+
+    @AfterEach
+    void clearPage() {
+        //mapper被mock，PageHelper拦截器不会清除分页参数
+        PageHelper.clearPage();
+    }
+
+    @Test
+    void unfilteredSearchUsesEstimatedTotal() {
+        when(orderMapper.estimateTotal()).thenReturn(12345L);
+        when(orderMapper.pageQuery(any())).thenAnswer(invocation -> {
+            //总数已估算，分页查询不再执行count
+            assertFalse(PageHelper.getLocalPage().isCount());
+            return new Page<Orders>();
+        });
+
+        PageResult result = orderService.conditionSearch(query(null));
+
+        verify(orderMapper).estimateTotal();
+        assertEquals(12345L, result.getTotal());
+    }
+
+    @Test
+    void filteredSearchCountsExactly() {
+        when(orderMapper.pageQuery(any())).thenAnswer(invocation -> {
+            assertTrue(PageHelper.getLocalPage().isCount());
+            Page<Orders> page = new Page<>();
+            page.setTotal(3);
+            return page;
+        });
+
+        PageResult result = orderService.conditionSearch(query("1380013"));
+
+        verify(orderMapper, never()).estimateTotal();
+        assertEquals(3L, result.getTotal());
+    }
+
+    @Test
+    void cursorPageSizeIsCapped() {
+        when(orderMapper.cursorQuery(any())).thenAnswer(invocation -> {
+            assertEquals(100, ((OrdersPageQueryDTO) invocation.getArgument(0)).getPageSize());
+            return new ArrayList<Orders>();
+        });
+        OrdersPageQueryDTO dto = query(null);
+        dto.setPageSize(1000000);
+
+        CursorPageResult result = orderService.conditionSearchByCursor(dto);
+
+        verify(orderMapper).cursorQuery(any());
+        assertFalse(result.isHasMore());
+    }
+
+    private static OrdersPageQueryDTO query(String phone) {
+        OrdersPageQueryDTO dto = new OrdersPageQueryDTO();
+        dto.setPage(1);
+        dto.setPageSize(10);
+        dto.setPhone(phone);
+        return dto;
+    }
+}
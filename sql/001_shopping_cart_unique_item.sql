@@ -0,0 +1,26 @@
+-- 购物车同一用户的同一商品（菜品+口味 / 套餐）只保留一行，
+-- 配合 ShoppingCartMapper 中的 insert ... on duplicate key update 实现原子的加购
+-- dish_id、setmeal_id、dish_flavor 可能为null，唯一键建立在把null转换为默认值的生成列上
+
+-- 1.合并已存在的重复数据：数量累加到id最小的一行，删除其余行
+update shopping_cart sc
+    join (select min(id) as keep_id, sum(number) as total
+          from shopping_cart
+          group by user_id, ifnull(dish_id, 0), ifnull(setmeal_id, 0), ifnull(dish_flavor, '')
+          having count(*) > 1) dup on sc.id = dup.keep_id
+set sc.number = dup.total;
+
+delete sc
+from shopping_cart sc
+    join shopping_cart keep on keep.user_id = sc.user_id
+        and ifnull(keep.dish_id, 0) = ifnull(sc.dish_id, 0)
+        and ifnull(keep.setmeal_id, 0) = ifnull(sc.setmeal_id, 0)
+        and ifnull(keep.dish_flavor, '') = ifnull(sc.dish_flavor, '')
+        and keep.id < sc.id;
+
+-- 2.生成列 + 唯一键
+alter table shopping_cart
+    add column dish_key    bigint      as (ifnull(dish_id, 0)) virtual,
+    add column setmeal_key bigint      as (ifnull(setmeal_id, 0)) virtual,
+    add column flavor_key  varchar(50) as (ifnull(dish_flavor, '')) virtual,
+    add unique key uk_shopping_cart_item (user_id, dish_key, setmeal_key, flavor_key);
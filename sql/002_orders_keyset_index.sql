@@ -0,0 +1,12 @@
+-- 订单列表游标分页（OrderMapper.cursorQuery）使用的索引
+-- 查询按 order_time desc, id desc 排序，从上一页最后一条的 (order_time, id) 之后继续；
+-- InnoDB二级索引自带主键id，(…, order_time) 上的索引即可按 (order_time, id) 顺序定位，无需回表排序
+
+-- 管理端订单搜索：不带条件或只按时间范围
+alter table orders add index idx_orders_order_time (order_time);
+
+-- 管理端按状态搜索（待接单、派送中等）
+alter table orders add index idx_orders_status_order_time (status, order_time);
+
+-- 用户端历史订单
+alter table orders add index idx_orders_user_order_time (user_id, order_time);
@@ -0,0 +1,12 @@
+-- 管理端订单搜索（OrderMapper.pageQuery，sky.order.search-mode=indexed）使用的列和索引
+-- 订单号按前缀匹配：number like '123%'
+-- 手机号按前缀或尾号匹配：phone like '138%' or phone_rev like '8765%'，
+-- phone_rev为反转后的手机号，尾号匹配转换为前缀匹配，两个条件分别使用各自的索引（index_merge union）
+
+alter table orders add index idx_orders_number (number);
+
+alter table orders add index idx_orders_phone (phone);
+
+alter table orders
+    add column phone_rev varchar(11) generated always as (reverse(phone)) stored,
+    add index idx_orders_phone_rev (phone_rev);
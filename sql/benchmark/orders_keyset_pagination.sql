@@ -0,0 +1,82 @@
+-- 订单列表分页方式对比：PageHelper（limit offset + count）与游标分页（OrderMapper.cursorQuery）
+-- 在独立的测试库中执行：先执行建表脚本和 sql/002_orders_keyset_index.sql，再执行本脚本
+-- 生成 300 万条订单（1 万个用户，时间分布在最近两年），然后分别执行下面的查询并对比耗时和 explain 结果
+
+-- 1.生成测试数据
+drop temporary table if exists digits;
+create temporary table digits (d int primary key);
+insert into digits values (0), (1), (2), (3), (4), (5), (6), (7), (8), (9);
+
+insert into orders (number, status, user_id, address_book_id, order_time, checkout_time, pay_method, pay_status,
+                    amount, remark, phone, address, consignee, estimated_delivery_time, delivery_status,
+                    pack_amount, tableware_number, tableware_status)
+select concat('BENCH', n),
+       1 + n % 6,
+       1 + n % 10000,
+       1,
+       now() - interval (n * 21) second,
+       now() - interval (n * 21) second,
+       1,
+       1,
+       20 + n % 200,
+       '',
+       concat('138', lpad(n % 100000000, 8, '0')),
+       '',
+       'bench',
+       now() - interval (n * 21) second + interval 1 hour,
+       1,
+       2,
+       1,
+       1
+from (select a.d + b.d * 10 + c.d * 100 + e.d * 1000 + f.d * 10000 + g.d * 100000 + h.d * 1000000 as n
+      from digits a, digits b, digits c, digits e, digits f, digits g, digits h) seq
+where n < 3000000;
+
+analyze table orders;
+
+-- 2.管理端第 1 页和第 5000 页（每页 10 条），PageHelper 方式：count + limit offset
+select count(0) from orders;
+select * from orders order by order_time desc, id desc limit 0, 10;
+select * from orders order by order_time desc, id desc limit 49990, 10;
+
+-- 3.同一位置的游标分页：用第 4999 页最后一条订单作为游标，只扫描 11 行索引
+select order_time, id into @cursor_time, @cursor_id
+from orders order by order_time desc, id desc limit 49989, 1;
+
+explain
+select * from orders
+where order_time < @cursor_time or (order_time = @cursor_time and id < @cursor_id)
+order by order_time desc, id desc
+limit 11;
+
+select * from orders
+where order_time < @cursor_time or (order_time = @cursor_time and id < @cursor_id)
+order by order_time desc, id desc
+limit 11;
+
+-- 4.按状态筛选（待接单）第 500 页：游标取自筛选结果第 499 页的最后一条
+select count(0) from orders where status = 2;
+select * from orders where status = 2 order by order_time desc, id desc limit 4990, 10;
+
+select order_time, id into @status_cursor_time, @status_cursor_id
+from orders where status = 2 order by order_time desc, id desc limit 4989, 1;
+
+select * from orders
+where status = 2 and (order_time < @status_cursor_time or (order_time = @status_cursor_time and id < @status_cursor_id))
+order by order_time desc, id desc
+limit 11;
+
+-- 5.用户端历史订单（单个用户约 300 条）第 21 页：游标取自该用户第 20 页的最后一条
+select count(0) from orders where user_id = 42;
+select * from orders where user_id = 42 order by order_time desc, id desc limit 200, 10;
+
+select order_time, id into @user_cursor_time, @user_cursor_id
+from orders where user_id = 42 order by order_time desc, id desc limit 199, 1;
+
+select * from orders
+where user_id = 42 and (order_time < @user_cursor_time or (order_time = @user_cursor_time and id < @user_cursor_id))
+order by order_time desc, id desc
+limit 11;
+
+-- 6.清理测试数据
+delete from orders where number like 'BENCH%';